@@ -0,0 +1,89 @@
+package com.morapack.skyroute.algorithm;
+
+import com.morapack.skyroute.config.*;
+
+/**
+ * Ajusta P_CROSS y P_MUT según la mejora de fitness por evaluación que aporta cada operador.
+ * Cada hijo anota su mejora en un {@link Tally}; las tallas se suman en el orden fijo de las tareas y,
+ * al cerrar cada generación, se actualiza una media exponencial por operador y las probabilidades se
+ * reparten en proporción a esas tasas, acotadas para que ningún operador deje de probarse. No se usa el
+ * tiempo de reloj: así las probabilidades dependen solo de la semilla, no de la carga de la máquina.
+ */
+final class AdaptiveOperators {
+    private static final double DECAY = 0.7;
+    private static final double MIN_PROBABILITY = 0.1;
+    private static final double MAX_PROBABILITY = 0.9;
+
+    enum Operator {
+        CROSSOVER,
+        MUTATION,
+        // Mutación adicional aplicada al hijo con probabilidad P_MUT
+        EXTRA_MUTATION
+    }
+
+    private final double[] gain = new double[Operator.values().length];
+    private final int[] applications = new int[Operator.values().length];
+    private final double[] rate = new double[Operator.values().length];
+    private volatile double crossoverProbability = Config.P_CROSS;
+    private volatile double mutationProbability = Config.P_MUT;
+
+    double crossoverProbability() {
+        return crossoverProbability;
+    }
+
+    double mutationProbability() {
+        return mutationProbability;
+    }
+
+    /**
+     * Suma la talla de un hijo a la generación en curso.
+     */
+    synchronized void add(Tally tally) {
+        for (int i = 0; i < gain.length; i++) {
+            gain[i] += tally.gain[i];
+            applications[i] += tally.applications[i];
+        }
+    }
+
+    /**
+     * Cierra la generación: actualiza las tasas y, si algún operador mejoró, las probabilidades.
+     */
+    synchronized void endGeneration() {
+        for (int i = 0; i < rate.length; i++) {
+            if (applications[i] > 0) {
+                rate[i] = DECAY * rate[i] + (1 - DECAY) * gain[i] / applications[i];
+            }
+            gain[i] = 0;
+            applications[i] = 0;
+        }
+        double crossover = rate[Operator.CROSSOVER.ordinal()];
+        double mutation = rate[Operator.MUTATION.ordinal()];
+        double extra = rate[Operator.EXTRA_MUTATION.ordinal()];
+        if (crossover + mutation > 0) {
+            crossoverProbability = clamp(crossover / (crossover + mutation));
+        }
+        // La mutación adicional compite con la tasa media de los operadores principales
+        double primary = crossoverProbability * crossover + (1 - crossoverProbability) * mutation;
+        if (extra + primary > 0) {
+            mutationProbability = clamp(extra / (extra + primary));
+        }
+    }
+
+    /**
+     * Mejora y aplicaciones de los operadores en la cría de un hijo; solo cuenta la mejora sobre la
+     * referencia (el mejor padre o el hijo antes de la mutación adicional).
+     */
+    static final class Tally {
+        private final double[] gain = new double[Operator.values().length];
+        private final int[] applications = new int[Operator.values().length];
+
+        void record(Operator operator, double referenceFitness, double childFitness) {
+            gain[operator.ordinal()] += Math.max(0.0, childFitness - referenceFitness);
+            applications[operator.ordinal()]++;
+        }
+    }
+
+    private static double clamp(double probability) {
+        return Math.max(MIN_PROBABILITY, Math.min(MAX_PROBABILITY, probability));
+    }
+}
@@ -0,0 +1,398 @@
+package com.morapack.skyroute.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import com.morapack.skyroute.config.*;
+import com.morapack.skyroute.models.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adaptive Large Neighborhood Search sobre una sola solución: cada iteración quita algunas órdenes
+ * (aleatorias, de menor holgura, mismo destino o mismo vuelo) sobre copias de los schedules y las
+ * reinserta con greedy o regret-k. La candidata se acepta con recocido simulado y los operadores se
+ * eligen por ruleta con pesos que se ajustan por segmentos según el puntaje que obtienen.
+ * El objetivo es lexicográfico ({@link Individual#BY_SLA}): menos violaciones de SLA y, con las
+ * mismas, menos minutos de atraso. El fitness del GA no sirve aquí porque premia la tardanza.
+ */
+public class AlnsOptimizer implements PlanOptimizer {
+    private static final Logger log = LoggerFactory.getLogger(AlnsOptimizer.class);
+    // Puntajes por iteración: nueva mejor global, mejora a la actual, peor pero aceptada
+    private static final double SCORE_BEST = 33;
+    private static final double SCORE_BETTER = 9;
+    private static final double SCORE_ACCEPTED = 13;
+    private static final double REACTION = 0.1;
+    private static final double MIN_WEIGHT = 0.1;
+    private static final int SEGMENT_ITERATIONS = 50;
+    // Temperatura inicial: una candidata 5% peor se acepta con probabilidad 1/2; enfría hasta 1/1000.
+    // Hay una temperatura por criterio: violaciones si la candidata tiene más, minutos de atraso si no
+    private static final double START_WORSENING = 0.05;
+    private static final double END_TEMPERATURE_RATIO = 1e-3;
+    // Sesgo hacia las peores holguras en la remoción (1 = uniforme)
+    private static final double WORST_SLACK_BIAS = 3.0;
+
+    enum Destroy {
+        RANDOM,
+        WORST_SLACK,
+        SAME_DESTINATION,
+        SAME_FLIGHT
+    }
+
+    enum Repair {
+        GREEDY,
+        REGRET
+    }
+
+    private final World world;
+    private final List<Order> demand;
+    private final Map<String, Order> orderById = new HashMap<>();
+    private final Random rnd;
+    private final double[] destroyWeights = new double[Destroy.values().length];
+    private final double[] repairWeights = new double[Repair.values().length];
+    private final double[] destroyScores = new double[Destroy.values().length];
+    private final double[] repairScores = new double[Repair.values().length];
+    private final int[] destroyUses = new int[Destroy.values().length];
+    private final int[] repairUses = new int[Repair.values().length];
+    private long stagnationWindowNanos = Config.GA_STAGNATION_WINDOW_MS * 1_000_000L;
+    private Individual current;
+    private Individual best;
+    private Individual reference;
+    private long referenceNanos;
+    private StopReason stopReason = StopReason.GENERATION_LIMIT;
+
+    public AlnsOptimizer(World world, List<Order> demand) {
+        this(world, demand, new Random());
+    }
+
+    public AlnsOptimizer(World world, List<Order> demand, long seed) {
+        this(world, demand, new Random(seed));
+    }
+
+    private AlnsOptimizer(World world, List<Order> demand, Random rnd) {
+        this.world = world;
+        this.demand = demand;
+        this.rnd = rnd;
+        for (Order order : demand) {
+            orderById.putIfAbsent(order.getId(), order);
+        }
+    }
+
+    public void setStagnationWindowMillis(long millis) {
+        this.stagnationWindowNanos = millis > 0 ? millis * 1_000_000L : 0L;
+    }
+
+    /**
+     * Mismas entradas que el GA: la solución inicial es la mejor entre la semilla, el carry-over con las
+     * nuevas órdenes y el individuo del Connection Scan. {@code generations * populationSize} acota las
+     * iteraciones, el mismo número de hijos que criaría el GA.
+     */
+    @Override
+    public Individual runTimed(int populationSize, int generations, long durationMillis, Individual seed, List<Individual> carryOver, List<Order> newOrders) {
+        if (demand.isEmpty()) {
+            throw new IllegalStateException("No orders available for ALNS");
+        }
+        long deadlineNanos = durationMillis > 0 ? System.nanoTime() + durationMillis * 1_000_000L : Long.MAX_VALUE;
+        current = initialSolution(seed, carryOver, newOrders);
+        best = current;
+        Arrays.fill(destroyWeights, 1.0);
+        Arrays.fill(repairWeights, 1.0);
+        log.info("[ALNS] runTimed start: budgetMs={} demand={} violaciones iniciales={} atraso={} min", durationMillis,
+                demand.size(), best.getSlaViolations(), best.getTardinessMinutes());
+        long maxIterations = (long) Math.max(1, generations) * Math.max(1, populationSize);
+        search(maxIterations, deadlineNanos, () -> false);
+        log.info("[ALNS] runTimed end: motivo={} fitness={} violaciones={} atraso={} min", stopReason, best.getFitness(),
+                best.getSlaViolations(), best.getTardinessMinutes());
+        best.applyToWorld(world);
+        return best;
+    }
+
+    @Override
+    public Individual continueTimed(int populationSize, long durationMillis, BooleanSupplier stop) {
+        if (best == null) {
+            throw new IllegalStateException("No solution to continue");
+        }
+        long deadlineNanos = System.nanoTime() + Math.max(0L, durationMillis) * 1_000_000L;
+        search(Long.MAX_VALUE, deadlineNanos, stop);
+        log.info("[ALNS] continueTimed end: motivo={} violaciones={} atraso={} min", stopReason, best.getSlaViolations(),
+                best.getTardinessMinutes());
+        return best;
+    }
+
+    @Override
+    public List<Individual> snapshotPopulation() {
+        List<Individual> snapshot = new ArrayList<>();
+        if (best != null) {
+            snapshot.add(best.copy());
+        }
+        if (current != null && current != best) {
+            snapshot.add(current.copy());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public StopReason getLastStopReason() {
+        return stopReason;
+    }
+
+    private void search(long maxIterations, long deadlineNanos, BooleanSupplier stop) {
+        long startNanos = System.nanoTime();
+        double violationTemperature = Math.max(1.0, START_WORSENING * current.getSlaViolations()) / Math.log(2);
+        double tardinessTemperature = Math.max(1.0, START_WORSENING * current.getTardinessMinutes()) / Math.log(2);
+        reference = best;
+        referenceNanos = startNanos;
+        for (long iteration = 0; ; iteration++) {
+            long now = System.nanoTime();
+            if (iteration >= maxIterations) {
+                stopReason = StopReason.GENERATION_LIMIT;
+                return;
+            }
+            if (now >= deadlineNanos) {
+                stopReason = StopReason.TIME_BUDGET;
+                return;
+            }
+            if (stop.getAsBoolean()) {
+                stopReason = StopReason.INTERRUPTED;
+                return;
+            }
+            if (iteration > 0 && iteration % SEGMENT_ITERATIONS == 0) {
+                updateWeights();
+                log.debug("[ALNS] iteración {} mejor violaciones={} atraso={} destroy={} repair={}", iteration,
+                        best.getSlaViolations(), best.getTardinessMinutes(),
+                        Arrays.toString(destroyWeights), Arrays.toString(repairWeights));
+                if (!noteProgress(now)) {
+                    stopReason = StopReason.STAGNATION;
+                    return;
+                }
+            }
+
+            double progress = (double) iteration / maxIterations;
+            if (deadlineNanos != Long.MAX_VALUE) {
+                progress = Math.max(progress, (double) (now - startNanos) / (deadlineNanos - startNanos));
+            }
+            double cooling = Math.pow(END_TEMPERATURE_RATIO, Math.min(1.0, progress));
+
+            Destroy destroy = Destroy.values()[roulette(destroyWeights)];
+            Repair repair = Repair.values()[roulette(repairWeights)];
+            Individual candidate = apply(destroy, repair);
+            double score = 0;
+            if (Individual.BY_SLA.compare(candidate, best) < 0) {
+                best = candidate;
+                current = candidate;
+                score = SCORE_BEST;
+            } else if (Individual.BY_SLA.compare(candidate, current) < 0) {
+                current = candidate;
+                score = SCORE_BETTER;
+            } else if (candidate.fingerprint() != current.fingerprint()
+                    && rnd.nextDouble() < Math.exp(-worsening(candidate, violationTemperature * cooling, tardinessTemperature * cooling))) {
+                current = candidate;
+                score = SCORE_ACCEPTED;
+            }
+            destroyScores[destroy.ordinal()] += score;
+            destroyUses[destroy.ordinal()]++;
+            repairScores[repair.ordinal()] += score;
+            repairUses[repair.ordinal()]++;
+        }
+    }
+
+    /**
+     * Cuánto peor es la candidata que la actual, en temperaturas: por violaciones si tiene más y, si no,
+     * por minutos de atraso.
+     */
+    private double worsening(Individual candidate, double violationTemperature, double tardinessTemperature) {
+        int violations = candidate.getSlaViolations() - current.getSlaViolations();
+        if (violations != 0) {
+            return violations / violationTemperature;
+        }
+        return (candidate.getTardinessMinutes() - current.getTardinessMinutes()) / tardinessTemperature;
+    }
+
+    private Individual apply(Destroy destroy, Repair repair) {
+        List<String> removed = select(destroy);
+        FlightSchedule flightSchedule = current.getFlightSchedule().copy();
+        AirportSchedule airportSchedule = current.getAirportSchedule().copy();
+        List<Order> orders = new ArrayList<>(removed.size());
+        for (String orderId : removed) {
+            Individual.releasePlan(world, current.plan(orderId), flightSchedule, airportSchedule);
+            orders.add(orderById.get(orderId));
+        }
+        RouteBuilder builder = new RouteBuilder(world, flightSchedule, airportSchedule, rnd, RouteBuilder.SelectionMode.HEURISTIC_APPROACH);
+        OrderInsertion insertion = new OrderInsertion(world, builder, flightSchedule, airportSchedule);
+        List<PlanGene> plans = repair == Repair.GREEDY
+                ? insertion.greedy(orders)
+                : insertion.regret(orders, Config.ALNS_REGRET_K);
+        return Individual.replacePlans(current, plans, flightSchedule, airportSchedule);
+    }
+
+    /**
+     * Órdenes a quitar de la solución actual según el operador; al menos una.
+     */
+    private List<String> select(Destroy destroy) {
+        List<PlanGene> plans = current.genes();
+        int maxRemoved = (int) Math.max(1, Math.min(Config.ALNS_MAX_DESTROY, plans.size() * Config.ALNS_DESTROY_FRACTION));
+        int count = 1 + rnd.nextInt(maxRemoved);
+        Set<String> selected = new LinkedHashSet<>();
+        switch (destroy) {
+            case WORST_SLACK -> {
+                List<PlanGene> bySlack = new ArrayList<>(plans);
+                // Peor primero: sin rutas o más atrasadas y luego las de menor holgura
+                bySlack.sort(Comparator.comparingLong(
+                        (PlanGene plan) -> Individual.cost(plan, orderById.get(plan.orderId()).getQuantity())).reversed());
+                while (selected.size() < count && !bySlack.isEmpty()) {
+                    int index = (int) (Math.pow(rnd.nextDouble(), WORST_SLACK_BIAS) * bySlack.size());
+                    selected.add(bySlack.remove(index).orderId());
+                }
+            }
+            case SAME_DESTINATION -> {
+                String destination = orderById.get(randomPlan(plans).orderId()).getDestinationCode();
+                List<String> ids = new ArrayList<>();
+                for (PlanGene plan : plans) {
+                    if (destination.equals(orderById.get(plan.orderId()).getDestinationCode())) {
+                        ids.add(plan.orderId());
+                    }
+                }
+                Collections.shuffle(ids, rnd);
+                selected.addAll(ids.subList(0, Math.min(count, ids.size())));
+            }
+            case SAME_FLIGHT -> {
+                PlanGene anchor = randomPlan(plans);
+                selected.add(anchor.orderId());
+                if (anchor.legCount() > 0) {
+                    int leg = rnd.nextInt(anchor.legCount());
+                    int flight = anchor.legFlightIndex(leg);
+                    long day = anchor.legDay(leg);
+                    List<String> ids = new ArrayList<>();
+                    for (PlanGene plan : plans) {
+                        for (int other = 0; other < plan.legCount(); other++) {
+                            if (plan.legFlightIndex(other) == flight && plan.legDay(other) == day) {
+                                ids.add(plan.orderId());
+                                break;
+                            }
+                        }
+                    }
+                    Collections.shuffle(ids, rnd);
+                    for (String id : ids) {
+                        if (selected.size() >= count) {
+                            break;
+                        }
+                        selected.add(id);
+                    }
+                }
+            }
+            default -> {
+                List<String> ids = new ArrayList<>(plans.size());
+                for (PlanGene plan : plans) {
+                    ids.add(plan.orderId());
+                }
+                Collections.shuffle(ids, rnd);
+                selected.addAll(ids.subList(0, Math.min(count, ids.size())));
+            }
+        }
+        selected.removeIf(id -> !orderById.containsKey(id));
+        return new ArrayList<>(selected);
+    }
+
+    private PlanGene randomPlan(List<PlanGene> plans) {
+        return plans.get(rnd.nextInt(plans.size()));
+    }
+
+    private int roulette(double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double pick = rnd.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Cierra un segmento: cada peso se mueve hacia el puntaje medio obtenido por su operador.
+     */
+    private void updateWeights() {
+        updateWeights(destroyWeights, destroyScores, destroyUses);
+        updateWeights(repairWeights, repairScores, repairUses);
+    }
+
+    private static void updateWeights(double[] weights, double[] scores, int[] uses) {
+        for (int i = 0; i < weights.length; i++) {
+            if (uses[i] > 0) {
+                weights[i] = Math.max(MIN_WEIGHT, (1 - REACTION) * weights[i] + REACTION * scores[i] / uses[i]);
+            }
+            scores[i] = 0;
+            uses[i] = 0;
+        }
+    }
+
+    /**
+     * Misma ventana de estancamiento que el GA sobre el objetivo lexicográfico: hay progreso si bajan las
+     * violaciones o, con las mismas, el atraso baja al menos la mejora relativa mínima. False si la
+     * ventana venció sin progreso.
+     */
+    private boolean noteProgress(long now) {
+        double threshold = Config.GA_MIN_RELATIVE_IMPROVEMENT * Math.max(1.0, reference.getTardinessMinutes());
+        if (best.getSlaViolations() < reference.getSlaViolations()
+                || (best.getSlaViolations() == reference.getSlaViolations()
+                && reference.getTardinessMinutes() - best.getTardinessMinutes() >= threshold)) {
+            reference = best;
+            referenceNanos = now;
+            return true;
+        }
+        return stagnationWindowNanos <= 0 || now - referenceNanos < stagnationWindowNanos;
+    }
+
+    private Individual initialSolution(Individual seed, List<Individual> carryOver, List<Order> newOrders) {
+        List<Individual> candidates = new ArrayList<>();
+        if (seed != null) {
+            candidates.add(fitToDemand(seed));
+        }
+        if (carryOver != null) {
+            for (Individual individual : carryOver) {
+                Individual withNew = individual.tryInsertOrders(world, newOrders, rnd);
+                if (withNew != null) {
+                    candidates.add(fitToDemand(withNew));
+                }
+            }
+        }
+        if (Config.CONNECTION_SCAN_SEED) {
+            candidates.add(Individual.connectionScanIndividual(world, demand));
+        }
+        candidates.removeIf(candidate -> candidate == null);
+        if (candidates.isEmpty()) {
+            return Individual.randomIndividual(world, demand, rnd);
+        }
+        return Collections.min(candidates, Individual.BY_SLA);
+    }
+
+    /**
+     * Ajusta un individuo a la demanda actual: descarta planes de órdenes ajenas e inserta las faltantes.
+     */
+    private Individual fitToDemand(Individual individual) {
+        Individual fitted = individual.pruneToOrders(world, orderById.keySet());
+        if (fitted == null) {
+            return null;
+        }
+        List<Order> missing = new ArrayList<>();
+        for (Order order : demand) {
+            if (fitted.plan(order.getId()) == null) {
+                missing.add(order);
+            }
+        }
+        return missing.isEmpty() ? fitted : fitted.tryInsertOrders(world, missing, rnd);
+    }
+}
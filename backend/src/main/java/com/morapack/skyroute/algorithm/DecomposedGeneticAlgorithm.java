@@ -0,0 +1,385 @@
+package com.morapack.skyroute.algorithm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import com.morapack.skyroute.config.*;
+import com.morapack.skyroute.models.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Descompone la demanda en grupos de órdenes que compiten por capacidad y resuelve cada grupo con su
+ * propio GA en paralelo. Dos órdenes van al mismo grupo si sus planes candidatos (el de cada hub
+ * productor sobre el schedule del mundo) comparten un vuelo-día o un aeropuerto-día de estadía
+ * (transbordo o almacén de destino, ver {@link OrderInsertion#airportKeys}); los componentes se unen
+ * con union-find y se reparten en a lo sumo {@code maxClusters} grupos. Cada GA reserva sobre copias
+ * del schedule del mundo, así que al final una reconciliación vuelve a reservar los mejores planes de
+ * cada grupo sobre un único par de schedules y reinserta con regret las órdenes que ya no caben.
+ */
+public class DecomposedGeneticAlgorithm implements PlanOptimizer {
+    private static final Logger log = LoggerFactory.getLogger(DecomposedGeneticAlgorithm.class);
+
+    private static final class Cluster {
+        final List<Order> orders;
+        final Set<String> orderIds = new HashSet<>();
+        final GeneticAlgorithm ga;
+
+        Cluster(List<Order> orders, GeneticAlgorithm ga) {
+            this.orders = orders;
+            this.ga = ga;
+            for (Order order : orders) {
+                orderIds.add(order.getId());
+            }
+        }
+    }
+
+    private final World world;
+    private final List<Order> demand;
+    private final Random rnd;
+    private final List<Cluster> clusters = new ArrayList<>();
+    // Schedules del mundo al empezar la corrida: base de la reconciliación aunque luego se aplique el resultado
+    private FlightSchedule baseFlights;
+    private AirportSchedule baseAirports;
+    private int maxClusters = Config.DECOMPOSITION_MAX_CLUSTERS;
+    private StopReason stopReason = StopReason.GENERATION_LIMIT;
+
+    public DecomposedGeneticAlgorithm(World world, List<Order> demand) {
+        this(world, demand, new Random());
+    }
+
+    public DecomposedGeneticAlgorithm(World world, List<Order> demand, long seed) {
+        this(world, demand, new Random(seed));
+    }
+
+    private DecomposedGeneticAlgorithm(World world, List<Order> demand, Random rnd) {
+        this.world = world;
+        this.demand = demand;
+        this.rnd = rnd;
+    }
+
+    public void setMaxClusters(int maxClusters) {
+        this.maxClusters = Math.max(1, maxClusters);
+    }
+
+    @Override
+    public Individual runTimed(int populationSize, int generations, long durationMillis, Individual seed, List<Individual> carryOver, List<Order> newOrders) {
+        if (demand.isEmpty()) {
+            throw new IllegalStateException("No orders available for GA");
+        }
+        long deadlineNanos = durationMillis > 0 ? System.nanoTime() + durationMillis * 1_000_000L : Long.MAX_VALUE;
+        long start = System.nanoTime();
+        baseFlights = world.getFlights().getSchedule().copy();
+        baseAirports = world.getAirportSchedule().copy();
+        int components = decompose();
+        log.info("[GA-desc] runTimed start: budgetMs={} demand={} componentes={} grupos={} tamaños={} (descomposición {} ms)",
+                durationMillis, demand.size(), components, clusters.size(),
+                clusters.stream().map(cluster -> cluster.orders.size()).toList(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        ExecutorService executor = newClusterPool(clusters.size());
+        try {
+            runOnClusters(executor, cluster -> {
+                cluster.ga.preparePopulation(populationSize,
+                        seed != null ? seed.pruneToOrders(world, cluster.orderIds) : null,
+                        pruneAll(carryOver, cluster.orderIds),
+                        ordersIn(newOrders, cluster.orderIds));
+                return null;
+            });
+            runOnClusters(executor, cluster -> cluster.ga.evolve(populationSize, generations, deadlineNanos));
+        } finally {
+            executor.shutdownNow();
+        }
+        stopReason = combinedStopReason();
+
+        Individual best = reconcile(bestByCluster(0));
+        log.info("[GA-desc] terminado: motivo={} fitness={} violaciones={}", stopReason, best.getFitness(), best.getSlaViolations());
+        best.applyToWorld(world);
+        return best;
+    }
+
+    @Override
+    public Individual continueTimed(int populationSize, long durationMillis, BooleanSupplier stop) {
+        if (clusters.isEmpty()) {
+            throw new IllegalStateException("No population to continue");
+        }
+        long deadlineNanos = System.nanoTime() + Math.max(0L, durationMillis) * 1_000_000L;
+        ExecutorService executor = newClusterPool(clusters.size());
+        try {
+            for (Cluster cluster : clusters) {
+                cluster.ga.resetStagnation();
+            }
+            runOnClusters(executor, cluster -> cluster.ga.evolve(populationSize, Integer.MAX_VALUE, deadlineNanos, stop));
+        } finally {
+            executor.shutdownNow();
+        }
+        stopReason = combinedStopReason();
+        Individual best = reconcile(bestByCluster(0));
+        log.info("[GA-desc] continueTimed terminado: motivo={} fitness={}", stopReason, best.getFitness());
+        return best;
+    }
+
+    /**
+     * Combina por rango: el i-ésimo individuo reúne el i-ésimo mejor de cada grupo, así la siguiente
+     * corrida (descompuesta o no) recibe individuos completos.
+     */
+    @Override
+    public List<Individual> snapshotPopulation() {
+        int size = 0;
+        for (Cluster cluster : clusters) {
+            size = Math.max(size, cluster.ga.getPopulation().size());
+        }
+        List<Individual> snapshot = new ArrayList<>(size);
+        for (int rank = 0; rank < size; rank++) {
+            snapshot.add(reconcile(bestByCluster(rank)));
+        }
+        return snapshot;
+    }
+
+    @Override
+    public StopReason getLastStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * Agrupa la demanda por vuelos y almacenes candidatos compartidos y crea un GA por grupo; devuelve cuántos
+     * componentes independientes encontró.
+     */
+    private int decompose() {
+        FlightSchedule flightSchedule = baseFlights.copy();
+        AirportSchedule airportSchedule = baseAirports.copy();
+        RouteBuilder builder = new RouteBuilder(world, flightSchedule, airportSchedule, new Random(0), RouteBuilder.SelectionMode.HEURISTIC_APPROACH);
+        OrderInsertion insertion = new OrderInsertion(world, builder, flightSchedule, airportSchedule);
+
+        int count = demand.size();
+        int[] parent = new int[count];
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+        }
+        Map<Long, Integer> firstOnFlight = new HashMap<>();
+        Map<Long, Integer> firstAtAirport = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            for (PlanGene option : insertion.options(demand.get(i))) {
+                for (int leg = 0; leg < option.legCount(); leg++) {
+                    join(parent, firstOnFlight, OrderInsertion.flightKey(option, leg), i);
+                    for (long key : OrderInsertion.airportKeys(world.getNetworkIndex(), option, leg)) {
+                        join(parent, firstAtAirport, key, i);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<Order>> components = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            components.computeIfAbsent(find(parent, i), root -> new ArrayList<>()).add(demand.get(i));
+        }
+        List<List<Order>> groups = pack(new ArrayList<>(components.values()));
+
+        clusters.clear();
+        int workersPerCluster = Math.max(1, Config.GA_WORKERS / groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            GeneticAlgorithm ga = new GeneticAlgorithm(world, groups.get(i), rnd.nextLong());
+            ga.setWorkers(workersPerCluster);
+            ga.setLogTag("[GA-grupo-" + (i + 1) + "]");
+            clusters.add(new Cluster(groups.get(i), ga));
+        }
+        return components.size();
+    }
+
+    /**
+     * Reparte los componentes en a lo sumo maxClusters grupos: de mayor a menor, cada uno al grupo con
+     * menos órdenes. Dentro de cada grupo se respeta el orden de la demanda.
+     */
+    private List<List<Order>> pack(List<List<Order>> components) {
+        components.sort(Comparator.comparingInt((List<Order> component) -> component.size()).reversed());
+        int groupCount = Math.min(maxClusters, components.size());
+        List<List<Order>> groups = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (List<Order> component : components) {
+            groups.stream().min(Comparator.comparingInt(List::size)).orElseThrow().addAll(component);
+        }
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < demand.size(); i++) {
+            position.putIfAbsent(demand.get(i).getId(), i);
+        }
+        for (List<Order> group : groups) {
+            group.sort(Comparator.comparingInt(order -> position.get(order.getId())));
+        }
+        return groups;
+    }
+
+    /**
+     * Une la orden con la primera que usó el mismo recurso.
+     */
+    private static void join(int[] parent, Map<Long, Integer> firstUser, long key, int order) {
+        Integer other = firstUser.putIfAbsent(key, order);
+        if (other != null) {
+            union(parent, order, other);
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    /**
+     * Vuelve a reservar los planes de cada grupo, del más grande al más chico, sobre una copia de los
+     * schedules base. Las órdenes cuyo plan ya no cabe (o que su grupo no planificó) se reinsertan
+     * con regret sobre lo que quedó.
+     */
+    private Individual reconcile(List<Individual> parts) {
+        FlightSchedule flightSchedule = baseFlights.copy();
+        AirportSchedule airportSchedule = baseAirports.copy();
+        ReservationJournal journal = new ReservationJournal(world.getFlights(), flightSchedule, airportSchedule);
+        Map<String, PlanGene> merged = new HashMap<>();
+        List<Integer> bySize = new ArrayList<>();
+        for (int i = 0; i < clusters.size(); i++) {
+            bySize.add(i);
+        }
+        bySize.sort(Comparator.comparingInt((Integer i) -> clusters.get(i).orders.size()).reversed());
+        for (int index : bySize) {
+            Cluster cluster = clusters.get(index);
+            for (PlanGene plan : parts.get(index).genes()) {
+                if (!cluster.orderIds.contains(plan.orderId()) || merged.containsKey(plan.orderId())) {
+                    continue;
+                }
+                PlanGene adopted = plan.routeCount() == 0 ? plan : Individual.tryAdoptPlan(world, plan, journal);
+                if (adopted != null) {
+                    merged.put(plan.orderId(), adopted);
+                }
+            }
+        }
+
+        List<Order> conflicts = new ArrayList<>();
+        for (Order order : demand) {
+            if (!merged.containsKey(order.getId())) {
+                conflicts.add(order);
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            RouteBuilder builder = new RouteBuilder(world, flightSchedule, airportSchedule, new Random(rnd.nextLong()), RouteBuilder.SelectionMode.HEURISTIC_APPROACH);
+            List<PlanGene> repaired = new OrderInsertion(world, builder, flightSchedule, airportSchedule)
+                    .regret(conflicts, Config.BATCH_INSERTION_REGRET_K);
+            for (PlanGene plan : repaired) {
+                merged.put(plan.orderId(), plan);
+            }
+            log.debug("[GA-desc] reconciliación: {} órdenes reinsertadas por conflicto", conflicts.size());
+        }
+
+        List<PlanGene> plans = new ArrayList<>(demand.size());
+        for (Order order : demand) {
+            PlanGene plan = merged.remove(order.getId());
+            if (plan != null) {
+                plans.add(plan);
+            }
+        }
+        return Individual.assemble(plans, flightSchedule, airportSchedule);
+    }
+
+    /**
+     * El individuo de cada cluster en la posición {@code rank} según {@link Individual#BY_SLA}: el fitness
+     * premia la tardanza y dejaría pasar un plan con más violaciones que otro del mismo cluster.
+     */
+    private List<Individual> bestByCluster(int rank) {
+        List<Individual> parts = new ArrayList<>(clusters.size());
+        for (Cluster cluster : clusters) {
+            List<Individual> sorted = new ArrayList<>(cluster.ga.getPopulation());
+            sorted.sort(Individual.BY_SLA);
+            parts.add(sorted.get(Math.min(rank, sorted.size() - 1)));
+        }
+        return parts;
+    }
+
+    private StopReason combinedStopReason() {
+        boolean allStagnated = true;
+        for (Cluster cluster : clusters) {
+            StopReason reason = cluster.ga.getLastStopReason();
+            if (reason == StopReason.INTERRUPTED || reason == StopReason.TIME_BUDGET) {
+                return reason;
+            }
+            allStagnated &= reason == StopReason.STAGNATION;
+        }
+        return allStagnated ? StopReason.STAGNATION : StopReason.GENERATION_LIMIT;
+    }
+
+    private List<Individual> pruneAll(List<Individual> individuals, Set<String> orderIds) {
+        List<Individual> pruned = new ArrayList<>();
+        if (individuals != null) {
+            for (Individual individual : individuals) {
+                Individual part = individual.pruneToOrders(world, orderIds);
+                if (part != null) {
+                    pruned.add(part);
+                }
+            }
+        }
+        return pruned;
+    }
+
+    private static List<Order> ordersIn(List<Order> orders, Set<String> orderIds) {
+        if (orders == null) {
+            return List.of();
+        }
+        return orders.stream().filter(order -> orderIds.contains(order.getId())).toList();
+    }
+
+    private interface ClusterTask {
+        Object run(Cluster cluster);
+    }
+
+    private void runOnClusters(ExecutorService executor, ClusterTask task) {
+        List<Callable<Object>> calls = new ArrayList<>(clusters.size());
+        for (Cluster cluster : clusters) {
+            calls.add(() -> task.run(cluster));
+        }
+        try {
+            for (Future<Object> future : executor.invokeAll(calls)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Decomposed GA interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Decomposed GA failed", cause);
+        }
+    }
+
+    private static ExecutorService newClusterPool(int size) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, task -> {
+            Thread thread = new Thread(task, "ga-cluster-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -3,8 +3,19 @@ package com.morapack.skyroute.algorithm;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 import com.morapack.skyroute.config.*;
 import com.morapack.skyroute.models.*;
@@ -12,19 +23,65 @@ import com.morapack.skyroute.io.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class GeneticAlgorithm {
+public class GeneticAlgorithm implements PlanOptimizer {
     private static final Logger log = LoggerFactory.getLogger(GeneticAlgorithm.class);
     private final World world;
     private final List<Order> demand;
-    private final Random rnd = new Random();
+    private final Random rnd;
     private final List<Individual> population = new ArrayList<>();
     private static final int TOURNAMENT_K = 2; // menor presión, más diversidad
-    // private static final double MIN_IMPROVEMENT = 1e-6;
-    // private static final int EARLY_STOP_PATIENCE = 3;
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 30;
+    private int workers = 1;
+    // Pool de la descendencia: uno por GA, reutilizado por cada evolve (épocas de islas, clusters, anytime)
+    private ThreadPoolExecutor executor;
+    private String logTag = "[GA]";
+    private AdaptiveOperators operators = new AdaptiveOperators();
+    private long stagnationWindowNanos = Config.GA_STAGNATION_WINDOW_MS * 1_000_000L;
+    // Mejor fitness que reinició la ventana de estancamiento y cuándo
+    private double referenceFitness = Double.NEGATIVE_INFINITY;
+    private long referenceNanos;
+    private StopReason stopReason = StopReason.GENERATION_LIMIT;
 
     public GeneticAlgorithm(World world, List<Order> demand) {
+        this(world, demand, new Random());
+    }
+
+    public GeneticAlgorithm(World world, List<Order> demand, long seed) {
+        this(world, demand, new Random(seed));
+    }
+
+    private GeneticAlgorithm(World world, List<Order> demand, Random rnd) {
         this.world = world;
         this.demand = demand;
+        this.rnd = rnd;
+    }
+
+    /**
+     * Número de hilos usados para generar la descendencia de cada generación.
+     * Con 1 (por defecto) el GA corre secuencialmente como siempre.
+     */
+    public void setWorkers(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Ventana sin mejora relevante tras la cual se corta la corrida (<= 0 la desactiva).
+     */
+    public void setStagnationWindowMillis(long millis) {
+        this.stagnationWindowNanos = millis > 0 ? millis * 1_000_000L : 0L;
+    }
+
+    @Override
+    public StopReason getLastStopReason() {
+        return stopReason;
+    }
+
+    void setLogTag(String logTag) {
+        this.logTag = logTag;
     }
 
     public void initializePopulation(int size) {
@@ -47,6 +104,13 @@ public class GeneticAlgorithm {
                 }
             }
         }
+        if (Config.CONNECTION_SCAN_SEED && population.size() < size) {
+            try {
+                population.add(Individual.connectionScanIndividual(world, demand));
+            } catch (Exception ex) {
+                // ignore seed failure
+            }
+        }
         while (population.size() < size) {
             population.add(Individual.randomIndividual(world, demand, rnd));
         }
@@ -73,12 +137,16 @@ public class GeneticAlgorithm {
     }
 
     public Individual tournamentSelect() {
+        return tournamentSelect(rnd);
+    }
+
+    private Individual tournamentSelect(Random random) {
         if (population.isEmpty()) {
             throw new IllegalStateException("Population is empty");
         }
         Individual best = null;
         for (int i = 0; i < TOURNAMENT_K; i++) {
-            Individual candidate = population.get(rnd.nextInt(population.size()));
+            Individual candidate = population.get(random.nextInt(population.size()));
             if (best == null || candidate.getFitness() > best.getFitness()) {
                 best = candidate;
             }
@@ -110,11 +178,41 @@ public class GeneticAlgorithm {
      * Ejecuta el GA con tope de generaciones y, opcionalmente, un presupuesto de tiempo (ms).
      * Si durationMillis <= 0, solo usa el límite de generaciones.
      */
+    @Override
     public Individual runTimed(int populationSize, int generations, long durationMillis, Individual seed, List<Individual> carryOver, List<Order> newOrders) {
+        preparePopulation(populationSize, seed, carryOver, newOrders);
+        long deadlineNanos = durationMillis > 0 ? System.nanoTime() + durationMillis * 1_000_000L : Long.MAX_VALUE;
+        log.info("{} runTimed start: budgetMs={} popSize={} demand={} workers={}", logTag, durationMillis, populationSize, demand.size(), workers);
+        Individual best = evolve(populationSize, generations, deadlineNanos);
+        log.info("{} runTimed end: motivo={} fitness={} P_CROSS={} P_MUT={}", logTag, stopReason, best.getFitness(),
+                operators.crossoverProbability(), operators.mutationProbability());
+        applyToWorld(best);
+        return best;
+    }
+
+    @Override
+    public Individual continueTimed(int populationSize, long durationMillis, BooleanSupplier stop) {
+        if (population.isEmpty()) {
+            throw new IllegalStateException("No population to continue");
+        }
+        resetStagnation();
+        long deadlineNanos = System.nanoTime() + Math.max(0L, durationMillis) * 1_000_000L;
+        Individual best = evolve(populationSize, Integer.MAX_VALUE, deadlineNanos, stop);
+        log.info("{} continueTimed end: motivo={} fitness={}", logTag, stopReason, best.getFitness());
+        return best;
+    }
+
+    /**
+     * Arma la población inicial reutilizando la población previa (con las nuevas órdenes insertadas)
+     * y completa con la semilla y con individuos aleatorios hasta llegar a populationSize.
+     */
+    void preparePopulation(int populationSize, Individual seed, List<Individual> carryOver, List<Order> newOrders) {
         if (demand.isEmpty()) {
             throw new IllegalStateException("No orders available for GA");
         }
 
+        operators = new AdaptiveOperators();
+        resetStagnation();
         initializePopulationWithCarryOver(populationSize, seed, carryOver, newOrders);
         int reusedCount = population.size();
         if (population.isEmpty()) {
@@ -122,62 +220,234 @@ public class GeneticAlgorithm {
         } else {
             fillPopulation(populationSize, seed);
         }
-        System.out.println("[GA] Population reuse: " + reusedCount + "/" + population.size() + " carried over");
+        log.info("{} Population reuse: {}/{} carried over", logTag, reusedCount, population.size());
+    }
 
+    /**
+     * Evoluciona la población actual hasta {@code generations} generaciones, hasta el deadline o hasta
+     * que el mejor fitness se estanque; el motivo queda en {@link #getLastStopReason()}.
+     * No aplica el resultado al mundo; devuelve el mejor individuo encontrado.
+     */
+    Individual evolve(int populationSize, int generations, long deadlineNanos) {
+        return evolve(populationSize, generations, deadlineNanos, () -> false);
+    }
+
+    /**
+     * Igual que {@link #evolve(int, int, long)}, pero además termina cuando {@code stop} devuelve true;
+     * se consulta antes de cada generación y antes de criar cada hijo.
+     */
+    Individual evolve(int populationSize, int generations, long deadlineNanos, BooleanSupplier stop) {
         Individual best = bestIndividual(population);
-        double previousBestFitness = best.getFitness();
+        noteProgress(best);
+        stopReason = StopReason.GENERATION_LIMIT;
 
-        // int stagnant = 0;
-        long deadlineNanos = durationMillis > 0 ? System.nanoTime() + durationMillis * 1_000_000L : Long.MAX_VALUE;
-        log.info("[GA] runTimed start: budgetMs={} popSize={} demand={}", durationMillis, populationSize, demand.size());
+        ExecutorService pool = workerPool();
         for (int gen = 0; gen < generations; gen++) {
             if (System.nanoTime() >= deadlineNanos) {
-                log.info("[GA] Deadline reached before starting generation {}", gen + 1);
-                applyToWorld(best);
+                log.info("{} Deadline reached before starting generation {}", logTag, gen + 1);
+                stopReason = StopReason.TIME_BUDGET;
+                return best;
+            }
+            if (stop.getAsBoolean()) {
+                stopReason = StopReason.INTERRUPTED;
                 return best;
             }
             List<Individual> nextGen = new ArrayList<>();
             // Elitismo: conservar el mejor de la generación previa
-            nextGen.add(best);
+            Offspring offspring = new Offspring(nextGen, best, populationSize);
+
+            if (pool != null) {
+                List<Individual> children = breedParallel(pool, populationSize - nextGen.size(), deadlineNanos, stop);
+                for (Individual child : children) {
+                    offspring.admit(child);
+                }
+                if (System.nanoTime() >= deadlineNanos && nextGen.size() < populationSize) {
+                    log.info("{} Deadline reached mid-generation {} after {} individuals", logTag, gen + 1, nextGen.size());
+                    stopReason = StopReason.TIME_BUDGET;
+                    return best;
+                }
+            }
 
+            // Reemplaza en secuencia los hijos paralelos descartados por duplicados
             while (nextGen.size() < populationSize) {
                 if (System.nanoTime() >= deadlineNanos) {
-                    log.info("[GA] Deadline reached mid-generation {} after {} individuals", gen + 1, nextGen.size());
-                    applyToWorld(best);
+                    log.info("{} Deadline reached mid-generation {} after {} individuals", logTag, gen + 1, nextGen.size());
+                    stopReason = StopReason.TIME_BUDGET;
                     return best;
                 }
-                Individual parentA = tournamentSelect();
-                Individual child;
-                if (rnd.nextDouble() < Config.P_CROSS) {
-                    Individual parentB = tournamentSelect();
-                    child = crossover(parentA, parentB);
-                } else {
-                    child = mutate(parentA);
-                }
-
-                if (rnd.nextDouble() < Config.P_MUT) {
-                    child = mutate(child);
+                if (stop.getAsBoolean()) {
+                    stopReason = StopReason.INTERRUPTED;
+                    return best;
                 }
-
-                nextGen.add(child);
+                AdaptiveOperators.Tally tally = new AdaptiveOperators.Tally();
+                offspring.admit(breed(rnd, tally));
+                operators.add(tally);
             }
 
             population.clear();
             population.addAll(nextGen);
             best = bestIndividual(population);
-            log.info("[GA] Generación {} mejor fitness={} población={}", gen + 1, best.getFitness(), population.size());
+            log.info("{} Generación {} mejor fitness={} población={} duplicados={}/{} descartados={}", logTag, gen + 1,
+                    best.getFitness(), population.size(), offspring.duplicates, offspring.bred, offspring.rejected);
+            if (Config.GA_ADAPTIVE_OPERATORS) {
+                operators.endGeneration();
+            }
 
-            // Early stop desactivado temporalmente
             if (System.nanoTime() >= deadlineNanos) {
-                log.info("[GA] detenido por presupuesto de tiempo en generación {} (deadline alcanzado)", gen + 1);
-                applyToWorld(best);
+                log.info("{} detenido por presupuesto de tiempo en generación {} (deadline alcanzado)", logTag, gen + 1);
+                stopReason = StopReason.TIME_BUDGET;
+                return best;
+            }
+            if (!noteProgress(best)) {
+                log.info("{} detenido por estancamiento en generación {} (sin mejora relativa >= {} en {} ms)", logTag,
+                        gen + 1, Config.GA_MIN_RELATIVE_IMPROVEMENT, stagnationWindowNanos / 1_000_000L);
+                stopReason = StopReason.STAGNATION;
                 return best;
             }
         }
-        applyToWorld(best);
         return best;
     }
 
+    void resetStagnation() {
+        referenceFitness = Double.NEGATIVE_INFINITY;
+        referenceNanos = System.nanoTime();
+    }
+
+    /**
+     * Actualiza la referencia de estancamiento con el mejor de la generación. Devuelve false si la
+     * ventana venció sin que el mejor superara la referencia por el umbral relativo.
+     */
+    private boolean noteProgress(Individual best) {
+        long now = System.nanoTime();
+        double fitness = best.getFitness();
+        double threshold = Config.GA_MIN_RELATIVE_IMPROVEMENT * Math.max(1.0, Math.abs(referenceFitness));
+        if (referenceFitness == Double.NEGATIVE_INFINITY || fitness - referenceFitness >= threshold) {
+            referenceFitness = fitness;
+            referenceNanos = now;
+            return true;
+        }
+        return stagnationWindowNanos <= 0 || now - referenceNanos < stagnationWindowNanos;
+    }
+
+    private Individual breed(Random random, AdaptiveOperators.Tally tally) {
+        boolean adaptive = Config.GA_ADAPTIVE_OPERATORS;
+        double crossoverProbability = adaptive ? operators.crossoverProbability() : Config.P_CROSS;
+        double mutationProbability = adaptive ? operators.mutationProbability() : Config.P_MUT;
+        Individual parentA = tournamentSelect(random);
+        Individual child;
+        if (random.nextDouble() < crossoverProbability) {
+            Individual parentB = tournamentSelect(random);
+            child = Individual.crossover(world, demand, parentA, parentB, random);
+            tally.record(AdaptiveOperators.Operator.CROSSOVER,
+                    Math.max(parentA.getFitness(), parentB.getFitness()), child.getFitness());
+        } else {
+            child = Individual.mutate(world, demand, parentA, random);
+            tally.record(AdaptiveOperators.Operator.MUTATION, parentA.getFitness(), child.getFitness());
+        }
+
+        if (random.nextDouble() < mutationProbability) {
+            Individual before = child;
+            child = Individual.mutate(world, demand, child, random);
+            tally.record(AdaptiveOperators.Operator.EXTRA_MUTATION, before.getFitness(), child.getFitness());
+        }
+        return child;
+    }
+
+    /**
+     * Genera {@code count} hijos en paralelo. Cada hijo usa su propio Random derivado del generador
+     * principal en orden fijo, así el resultado depende solo de la semilla y no del reparto entre hilos.
+     * Devuelve menos hijos que los pedidos si el deadline o {@code stop} llegan antes de empezar alguno.
+     */
+    private List<Individual> breedParallel(ExecutorService executor, int count, long deadlineNanos, BooleanSupplier stop) {
+        List<Callable<Individual>> tasks = new ArrayList<>(count);
+        AdaptiveOperators.Tally[] tallies = new AdaptiveOperators.Tally[count];
+        for (int i = 0; i < count; i++) {
+            Random childRandom = new Random(rnd.nextLong());
+            AdaptiveOperators.Tally tally = new AdaptiveOperators.Tally();
+            tallies[i] = tally;
+            tasks.add(() -> System.nanoTime() >= deadlineNanos || stop.getAsBoolean() ? null : breed(childRandom, tally));
+        }
+        List<Individual> offspring = new ArrayList<>(count);
+        try {
+            List<Future<Individual>> futures = executor.invokeAll(tasks);
+            for (int i = 0; i < count; i++) {
+                Individual child = futures.get(i).get();
+                if (child != null) {
+                    offspring.add(child);
+                    operators.add(tallies[i]);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("GA interrupted while breeding offspring", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("GA worker failed", cause);
+        }
+        return offspring;
+    }
+
+    /**
+     * Arma la siguiente generación descartando hijos cuyo genoma (huella del individuo) ya está en ella.
+     * Tras tantos descartes como individuos se aceptan duplicados para que una población convergida
+     * no deje la generación sin terminar.
+     */
+    private static final class Offspring {
+        private final List<Individual> generation;
+        private final Set<Long> fingerprints = new HashSet<>();
+        private final int maxRejected;
+        private int bred;
+        private int duplicates;
+        private int rejected;
+
+        Offspring(List<Individual> generation, Individual elite, int maxRejected) {
+            this.generation = generation;
+            this.maxRejected = maxRejected;
+            generation.add(elite);
+            fingerprints.add(elite.fingerprint());
+        }
+
+        void admit(Individual child) {
+            bred++;
+            if (!fingerprints.add(child.fingerprint())) {
+                duplicates++;
+                if (rejected < maxRejected) {
+                    rejected++;
+                    return;
+                }
+            }
+            generation.add(child);
+        }
+    }
+
+    /**
+     * Pool de {@code workers} hilos creado una vez por GA (null si es secuencial). Los hilos son daemon y
+     * terminan tras {@link #WORKER_KEEP_ALIVE_SECONDS} sin trabajo, así un GA descartado no deja hilos vivos.
+     */
+    private synchronized ExecutorService workerPool() {
+        if (workers <= 1) {
+            return null;
+        }
+        if (executor == null || executor.getMaximumPoolSize() != workers) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), task -> {
+                        Thread thread = new Thread(task, "ga-worker-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            if (executor != null) {
+                executor.shutdown();
+            }
+            executor = pool;
+        }
+        return executor;
+    }
+
     private void initializePopulationWithCarryOver(int desiredSize, Individual seed, List<Individual> carryOver, List<Order> newOrders) {
         population.clear();
         if (carryOver == null || carryOver.isEmpty()) {
@@ -222,6 +492,7 @@ public class GeneticAlgorithm {
         }
     }
 
+    @Override
     public List<Individual> snapshotPopulation() {
         return population.stream()
                 .map(ind -> {
@@ -235,11 +506,11 @@ public class GeneticAlgorithm {
                 .toList();
     }
 
-    private Individual bestIndividual(List<Individual> individuals) {
+    static Individual bestIndividual(List<Individual> individuals) {
         return individuals.stream().max(Comparator.comparingDouble(Individual::getFitness)).orElseThrow();
     }
 
-    private void applyToWorld(Individual best) {
+    void applyToWorld(Individual best) {
         world.getFlights().getSchedule().applyFrom(best.getFlightSchedule());
         world.getAirportSchedule().applyFrom(best.getAirportSchedule());
     }
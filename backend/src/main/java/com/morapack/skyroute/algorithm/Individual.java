@@ -4,28 +4,56 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 
 import com.morapack.skyroute.config.*;
 import com.morapack.skyroute.io.Airports;
 import com.morapack.skyroute.models.*;
 
 public class Individual {
-    private final List<OrderPlan> plans;
+    // Atraso con que cuenta un plan sin rutas (la misma penalización que recibe al declararse infactible)
+    static final long UNPLANNED_LATENESS_MINUTES = 10_000;
+    // Cualquier plan que viola el SLA cuesta más que la peor holgura de uno a tiempo
+    private static final long VIOLATION_COST = 1_000_000_000L;
+    /**
+     * Calidad de servicio, menor es mejor: violaciones de SLA y, con las mismas, minutos de atraso.
+     * A diferencia del fitness, que premia la tardanza, sirve para decidir qué solución aplicar.
+     */
+    public static final Comparator<Individual> BY_SLA = Comparator.comparingInt(Individual::getSlaViolations)
+            .thenComparingLong(Individual::getTardinessMinutes);
+
+    // Planes inmutables, compartidos con padres e hijos mientras la orden no se reconstruya
+    private final List<PlanGene> plans;
+    // orderId -> plan; getPlans() conserva el orden de inserción para los DTO
+    private final Map<String, PlanGene> planByOrder;
     private final FlightSchedule flightSchedule;
     private final AirportSchedule airportSchedule;
-    private double fitness;
+    // Fitness como agregado incremental: cada operador suma o resta solo los planes que cambia
+    private long fitnessTotal;
     private int slaViolations;
+    // Minutos de atraso sumados (ver lateness); junto con slaViolations es el objetivo lexicográfico
+    private long tardiness;
+    // XOR de las huellas de los planes: dos individuos con los mismos planes tienen la misma
+    private long fingerprint;
+    private volatile List<OrderPlan> entities;
 
-    private Individual(List<OrderPlan> plans, FlightSchedule flightSchedule, AirportSchedule airportSchedule) {
+    private Individual(List<PlanGene> plans, FlightSchedule flightSchedule, AirportSchedule airportSchedule) {
+        this(Collections.unmodifiableList(plans), null, flightSchedule, airportSchedule);
+    }
+
+    private Individual(List<PlanGene> plans,
+                       Map<String, PlanGene> planByOrder,
+                       FlightSchedule flightSchedule,
+                       AirportSchedule airportSchedule) {
         this.plans = plans;
+        this.planByOrder = planByOrder != null ? planByOrder : indexPlans(plans);
         this.flightSchedule = flightSchedule;
         this.airportSchedule = airportSchedule;
     }
@@ -35,10 +63,43 @@ public class Individual {
         AirportSchedule airportSchedule = world.getAirportSchedule().copy();
         RouteBuilder builder = new RouteBuilder(world, flightSchedule, airportSchedule, rnd, RouteBuilder.SelectionMode.RANDOM_APPROACH);
 
-        List<OrderPlan> plans = new ArrayList<>();
+        List<PlanGene> plans = new ArrayList<>();
+        for (Order order : orders) {
+            plans.add(buildPlanForOrder(order, builder, world, rnd, false));
+        }
+
+        Individual individual = new Individual(plans, flightSchedule, airportSchedule);
+        individual.evaluate();
+        return individual;
+    }
+
+    /**
+     * Individuo determinista: las órdenes grandes se reparten con el flujo de costo mínimo y el resto sale
+     * del hub con la llegada más temprana según el Connection Scan. Se usa como semilla rápida de la
+     * población inicial.
+     */
+    static Individual connectionScanIndividual(World world, List<Order> orders) {
+        FlightSchedule flightSchedule = world.getFlights().getSchedule().copy();
+        AirportSchedule airportSchedule = world.getAirportSchedule().copy();
+        RouteBuilder builder = new RouteBuilder(world, flightSchedule, airportSchedule, new Random(0), RouteBuilder.SelectionMode.CONNECTION_SCAN);
+
+        List<PlanGene> plans = new ArrayList<>();
         for (Order order : orders) {
-            OrderPlan plan = buildPlanForOrder(order, builder, world, rnd);
-            plans.add(plan);
+            OrderPlan plan = new OrderPlan(order.getId());
+            int remaining = order.getQuantity() - addFlowRoutes(order, builder, plan);
+            while (remaining > 0) {
+                Route route = buildEarliestRoute(order, builder, remaining);
+                if (route == null) {
+                    plan.setSlack(Duration.ofMinutes(-UNPLANNED_LATENESS_MINUTES));
+                    builder.release(plan);
+                    plan.getRoutes().clear();
+                    break;
+                }
+                plan.addRoute(route);
+                remaining -= route.getQuantity();
+            }
+            plan.setSlack(determinePlanSlack(world, order, plan));
+            plans.add(PlanGene.of(plan, world.getFlights()));
         }
 
         Individual individual = new Individual(plans, flightSchedule, airportSchedule);
@@ -51,33 +112,37 @@ public class Individual {
         FlightSchedule flightSchedule = parentA.flightSchedule.copy();
         AirportSchedule airportSchedule = parentA.airportSchedule.copy();
         RouteBuilder builder = new RouteBuilder(world, flightSchedule, airportSchedule, rnd, RouteBuilder.SelectionMode.HEURISTIC_APPROACH);
+        ReservationJournal journal = new ReservationJournal(world.getFlights(), flightSchedule, airportSchedule);
 
-        // Punto de partida: copiar planes de A
-        List<OrderPlan> plans = deepCopyPlans(parentA.plans);
+        // Punto de partida: los planes de A (reemplazar un plan lo mueve al final, como antes)
+        Map<String, PlanGene> plans = new LinkedHashMap<>(parentA.planByOrder);
         // Seleccionamos un subconjunto para intentar mejorar con orígenes de B
         int tweakCount = Math.max(1, orders.size() / 4);
         Set<String> tweakIds = selectOrderIds(orders, tweakCount, rnd);
+        Map<String, Order> orderById = indexOrders(orders);
+        List<PlanGene> removed = new ArrayList<>();
+        List<PlanGene> added = new ArrayList<>();
 
         for (String orderId : tweakIds) {
-            Order order = findOrder(orders, orderId);
+            Order order = orderById.get(orderId);
             if (order == null) continue;
-            OrderPlan planA = findPlan(parentA, orderId);
-            OrderPlan planB = findPlan(parentB, orderId);
+            PlanGene planA = findPlan(parentA, orderId);
+            PlanGene planB = findPlan(parentB, orderId);
             if (planA != null) {
                 releasePlan(world, planA, flightSchedule, airportSchedule);
-                plans.removeIf(p -> p.getOrderId().equals(orderId));
-            }
-            OrderPlan adopted = tryAdoptPlan(world, order, planB, flightSchedule, airportSchedule);
-            if (adopted != null) {
-                plans.add(adopted);
-            } else {
-                OrderPlan rebuilt = buildPlanWithPreferences(order, planB, builder, world, rnd);
-                plans.add(rebuilt);
+                plans.remove(orderId);
+                removed.add(planA);
             }
+            PlanGene adopted = tryAdoptPlan(world, planB, journal);
+            PlanGene replacement = adopted != null
+                    ? adopted
+                    : buildPlanWithPreferences(order, planB, builder, world, rnd);
+            plans.put(orderId, replacement);
+            added.add(replacement);
         }
 
-        Individual child = new Individual(plans, flightSchedule, airportSchedule);
-        child.evaluate();
+        Individual child = new Individual(List.copyOf(plans.values()), plans, flightSchedule, airportSchedule);
+        child.inheritFitness(parentA, removed, added);
         return child;
     }
 
@@ -91,39 +156,79 @@ public class Individual {
         Set<String> mutateIds = selectOrderIds(orders, mutateCount, rnd);
 
         // Liberar reservas de los planes a mutar
-        for (OrderPlan plan : parent.plans) {
-            if (mutateIds.contains(plan.getOrderId())) {
+        for (PlanGene plan : parent.plans) {
+            if (mutateIds.contains(plan.orderId())) {
                 releasePlan(world, plan, flightSchedule, airportSchedule);
             }
         }
 
-        List<OrderPlan> plans = new ArrayList<>();
+        // Solo las órdenes mutadas generan planes nuevos; el resto se comparte con el padre
+        List<PlanGene> plans = new ArrayList<>(orders.size());
+        List<PlanGene> removed = new ArrayList<>();
+        List<PlanGene> added = new ArrayList<>();
+        int matched = 0;
         for (Order order : orders) {
-            if (mutateIds.contains(order.getId())) {
-                OrderPlan preferred = findPlan(parent, order.getId());
-                OrderPlan rebuilt = buildPlanWithPreferences(order, preferred, builder, world, rnd);
-                plans.add(rebuilt);
-            } else {
-                OrderPlan existing = findPlan(parent, order.getId());
-                OrderPlan copy = copyPlan(existing);
-                if (copy != null) {
-                    plans.add(copy);
-                } else {
-                    plans.add(buildPlanWithPreferences(order, existing, builder, world, rnd));
-                }
+            PlanGene existing = findPlan(parent, order.getId());
+            if (existing != null) {
+                matched++;
+            }
+            if (existing != null && !mutateIds.contains(order.getId())) {
+                plans.add(existing);
+                continue;
+            }
+            PlanGene rebuilt = buildPlanWithPreferences(order, existing, builder, world, rnd);
+            plans.add(rebuilt);
+            added.add(rebuilt);
+            if (existing != null) {
+                removed.add(existing);
             }
         }
 
         Individual mutant = new Individual(plans, flightSchedule, airportSchedule);
-        mutant.evaluate();
+        if (matched == parent.plans.size()) {
+            mutant.inheritFitness(parent, removed, added);
+        } else {
+            // El padre tenía planes de órdenes fuera de la demanda: se descartan y se recalcula todo
+            mutant.evaluate();
+        }
         return mutant;
     }
 
+    /**
+     * Individuo que comparte los planes del padre salvo los de {@code replacements}, que ocupan la
+     * posición del plan de su orden. Los schedules ya deben tener liberados los planes viejos y
+     * reservados los nuevos (operadores destroy/repair del ALNS).
+     */
+    static Individual replacePlans(Individual parent, List<PlanGene> replacements,
+                                   FlightSchedule flightSchedule, AirportSchedule airportSchedule) {
+        Map<String, PlanGene> plans = new LinkedHashMap<>(parent.planByOrder);
+        List<PlanGene> removed = new ArrayList<>();
+        for (PlanGene plan : replacements) {
+            PlanGene previous = plans.put(plan.orderId(), plan);
+            if (previous != null) {
+                removed.add(previous);
+            }
+        }
+        Individual child = new Individual(List.copyOf(plans.values()), plans, flightSchedule, airportSchedule);
+        child.inheritFitness(parent, removed, replacements);
+        return child;
+    }
+
+    /**
+     * Individuo con planes ya reservados en los schedules dados (reconciliación de la descomposición).
+     */
+    static Individual assemble(List<PlanGene> plans, FlightSchedule flightSchedule, AirportSchedule airportSchedule) {
+        Individual individual = new Individual(new ArrayList<>(plans), flightSchedule, airportSchedule);
+        individual.evaluate();
+        return individual;
+    }
+
     public Individual copy() {
-        List<OrderPlan> planCopies = deepCopyPlans(this.plans);
-        Individual clone = new Individual(planCopies, flightSchedule.copy(), airportSchedule.copy());
-        clone.fitness = this.fitness;
+        Individual clone = new Individual(plans, planByOrder, flightSchedule.copy(), airportSchedule.copy());
+        clone.fitnessTotal = this.fitnessTotal;
         clone.slaViolations = this.slaViolations;
+        clone.tardiness = this.tardiness;
+        clone.fingerprint = this.fingerprint;
         return clone;
     }
 
@@ -133,14 +238,14 @@ public class Individual {
         RouteBuilder builder = new RouteBuilder(world, scheduleCopy, airportCopy, rnd, RouteBuilder.SelectionMode.HEURISTIC_APPROACH);
 
         try {
-            OrderPlan newPlan = buildPlanForOrder(newOrder, builder, world, rnd);
-            if (newPlan.getSlack() == null || newPlan.getSlack().isNegative()) {
+            PlanGene newPlan = buildPlanForOrder(newOrder, builder, world, rnd, true);
+            if (newPlan.slack() == null || newPlan.slack().isNegative()) {
                 return null;
             }
-            List<OrderPlan> planCopies = deepCopyPlans(this.plans);
+            List<PlanGene> planCopies = new ArrayList<>(this.plans);
             planCopies.add(newPlan);
             Individual patched = new Individual(planCopies, scheduleCopy, airportCopy);
-            patched.evaluate();
+            patched.inheritFitness(this, List.of(), List.of(newPlan));
             return patched;
         } catch (IllegalStateException ex) {
             return null;
@@ -154,14 +259,19 @@ public class Individual {
         FlightSchedule scheduleCopy = flightSchedule.copy();
         AirportSchedule airportCopy = airportSchedule.copy();
         RouteBuilder builder = new RouteBuilder(world, scheduleCopy, airportCopy, rnd, RouteBuilder.SelectionMode.HEURISTIC_APPROACH);
-        List<OrderPlan> planCopies = deepCopyPlans(this.plans);
+        List<PlanGene> planCopies = new ArrayList<>(this.plans);
         try {
-            for (Order order : newOrders) {
-                OrderPlan newPlan = buildPlanForOrder(order, builder, world, rnd);
-                planCopies.add(newPlan);
+            if (Config.BATCH_INSERTION_REGRET_K > 1 && newOrders.size() > 1) {
+                // Primero las órdenes que más pierden si otra les gana la capacidad
+                OrderInsertion insertion = new OrderInsertion(world, builder, scheduleCopy, airportCopy);
+                planCopies.addAll(insertion.regret(newOrders, Config.BATCH_INSERTION_REGRET_K));
+            } else {
+                for (Order order : newOrders) {
+                    planCopies.add(buildPlanForOrder(order, builder, world, rnd, true));
+                }
             }
             Individual patched = new Individual(planCopies, scheduleCopy, airportCopy);
-            patched.evaluate();
+            patched.inheritFitness(this, List.of(), planCopies.subList(this.plans.size(), planCopies.size()));
             return patched;
         } catch (IllegalStateException ex) {
             return null;
@@ -178,22 +288,21 @@ public class Individual {
         }
         FlightSchedule scheduleCopy = flightSchedule.copy();
         AirportSchedule airportCopy = airportSchedule.copy();
-        List<OrderPlan> keptPlans = new ArrayList<>();
-        for (OrderPlan plan : plans) {
-            if (!keepOrderIds.contains(plan.getOrderId())) {
+        List<PlanGene> keptPlans = new ArrayList<>();
+        List<PlanGene> dropped = new ArrayList<>();
+        for (PlanGene plan : plans) {
+            if (!keepOrderIds.contains(plan.orderId())) {
                 releasePlan(world, plan, scheduleCopy, airportCopy);
+                dropped.add(plan);
                 continue;
             }
-            OrderPlan copy = copyPlan(plan);
-            if (copy != null) {
-                keptPlans.add(copy);
-            }
+            keptPlans.add(plan);
         }
         if (keptPlans.isEmpty()) {
             return null;
         }
         Individual pruned = new Individual(keptPlans, scheduleCopy, airportCopy);
-        pruned.evaluate();
+        pruned.inheritFitness(this, dropped, List.of());
         return pruned;
     }
 
@@ -233,36 +342,131 @@ public class Individual {
     }
 
     private void evaluate() {
-        double total = 0;
-        for (OrderPlan plan : plans) {
-            total += plan.getSlack().toMinutes();
-        }
-        this.slaViolations = 0;
-        for (OrderPlan plan : plans) {
-            long slackMinutes = plan.getSlack().toMinutes();
-            if (slackMinutes < 0) {
-                slaViolations++;
-                // Penalizar de forma severa las violaciones de SLA (proporcional a la tardanza)
-                total += Math.abs(slackMinutes) * 1_000_000d;
-            } else {
-                total += slackMinutes;
-            }
+        fitnessTotal = 0;
+        slaViolations = 0;
+        tardiness = 0;
+        fingerprint = 0;
+        for (PlanGene plan : plans) {
+            account(plan, 1);
+        }
+    }
+
+    /**
+     * Parte del agregado del padre y aplica solo los planes quitados y agregados por el operador.
+     */
+    private void inheritFitness(Individual parent, List<PlanGene> removed, List<PlanGene> added) {
+        fitnessTotal = parent.fitnessTotal;
+        slaViolations = parent.slaViolations;
+        tardiness = parent.tardiness;
+        fingerprint = parent.fingerprint;
+        for (PlanGene plan : removed) {
+            account(plan, -1);
+        }
+        for (PlanGene plan : added) {
+            account(plan, 1);
+        }
+    }
+
+    /**
+     * Aporte de un plan: su holgura en minutos y, además, la penalización por tardanza si viola el SLA
+     * o la holgura otra vez si no. Todos los términos son enteros, así que la suma en long coincide
+     * con la evaluación completa en double mientras el total no supere 2^53. Un plan sin rutas cuenta
+     * como violación; los constructores de planes no dejan planes con parte de la cantidad.
+     */
+    private void account(PlanGene plan, int sign) {
+        fingerprint ^= plan.fingerprint();
+        long lateness = lateness(plan, plan.plannedQuantity());
+        if (lateness > 0) {
+            slaViolations += sign;
+            tardiness += sign * lateness;
+        }
+        fitnessTotal += sign * contribution(plan);
+    }
+
+    /**
+     * Aporte de un plan al fitness del individuo.
+     */
+    static long contribution(PlanGene plan) {
+        long slackMinutes = plan.slackMinutes();
+        if (slackMinutes < 0) {
+            // Penalizar de forma severa las violaciones de SLA (proporcional a la tardanza)
+            return slackMinutes + Math.abs(slackMinutes) * 1_000_000L;
+        }
+        return slackMinutes + slackMinutes;
+    }
+
+    /**
+     * Minutos de atraso de un plan para {@code quantity} unidades; un plan sin rutas o que no lleva
+     * toda la cantidad cuenta como {@link #UNPLANNED_LATENESS_MINUTES}.
+     */
+    static long lateness(PlanGene plan, int quantity) {
+        if (plan.routeCount() == 0 || plan.plannedQuantity() < quantity) {
+            return UNPLANNED_LATENESS_MINUTES;
         }
-        this.fitness = total;
+        return Math.max(0, -plan.slackMinutes());
+    }
+
+    /**
+     * Costo de un plan, menor es mejor y lexicográfico: primero si viola el SLA (tarde, sin rutas o
+     * incompleto), luego los minutos de atraso y, entre los que llegan a tiempo, la mayor holgura.
+     * A diferencia de {@link #contribution}, nunca premia la tardanza.
+     */
+    static long cost(PlanGene plan, int quantity) {
+        long lateness = lateness(plan, quantity);
+        return lateness > 0 ? VIOLATION_COST + lateness : -plan.slackMinutes();
+    }
+
+    /**
+     * Verifica que el agregado incremental coincida con una evaluación completa (para pruebas y diagnóstico).
+     */
+    boolean isFitnessConsistent() {
+        Individual full = new Individual(plans, planByOrder, flightSchedule, airportSchedule);
+        full.evaluate();
+        return full.fitnessTotal == fitnessTotal
+                && full.slaViolations == slaViolations
+                && full.tardiness == tardiness
+                && full.fingerprint == fingerprint;
+    }
+
+    /**
+     * Huella del genoma (planes por orden); sirve para descartar hijos duplicados.
+     */
+    long fingerprint() {
+        return fingerprint;
+    }
+
+    PlanGene plan(String orderId) {
+        return planByOrder.get(orderId);
+    }
+
+    List<PlanGene> genes() {
+        return plans;
     }
 
     Individual deepCopy() {
-        List<OrderPlan> copyPlans = new ArrayList<>(plans);
         // schedules are already individual-specific; we don't reuse them when cloning for operators
-        return new Individual(copyPlans, flightSchedule, airportSchedule);
+        return new Individual(plans, planByOrder, flightSchedule, airportSchedule);
     }
 
     public double getFitness() {
-        return fitness;
+        return fitnessTotal;
     }
 
+    /**
+     * Planes como entidades JPA, en el orden del individuo. Se materializan en el primer acceso
+     * (exportación a CurrentPlan o DTO de snapshot); el GA trabaja solo con los valores inmutables.
+     */
     public List<OrderPlan> getPlans() {
-        return plans;
+        List<OrderPlan> materialized = entities;
+        if (materialized == null) {
+            List<OrderPlan> built = new ArrayList<>(plans.size());
+            for (PlanGene plan : plans) {
+                built.add(plan.toEntity());
+            }
+            materialized = Collections.unmodifiableList(built);
+            entities = materialized;
+        }
+        return materialized;
     }
 
     public FlightSchedule getFlightSchedule() {
@@ -273,6 +477,14 @@ public class Individual {
         return slaViolations;
     }
 
+    /**
+     * Minutos de atraso sumados de los planes que violan el SLA; un plan sin rutas suma
+     * {@link #UNPLANNED_LATENESS_MINUTES}.
+     */
+    public long getTardinessMinutes() {
+        return tardiness;
+    }
+
     public boolean isSlaCompliant() {
         return slaViolations == 0;
     }
@@ -288,8 +500,8 @@ public class Individual {
         }
 
         Map<String, Instant> completion = new HashMap<>();
-        for (OrderPlan plan : plans) {
-            Order order = orderMap.get(plan.getOrderId());
+        for (PlanGene plan : plans) {
+            Order order = orderMap.get(plan.orderId());
             if (order == null) {
                 continue;
             }
@@ -300,7 +512,7 @@ public class Individual {
     }
 
     public void prettyPrint() {
-        for (OrderPlan plan : plans) {
+        for (OrderPlan plan : getPlans()) {
             System.out.println("  Order " + plan.getOrderId() + " qty=" + plan.plannedQuantity()
                     + " slack=" + plan.getSlack());
             int idx = 1;
@@ -319,23 +531,27 @@ public class Individual {
         }
     }
 
-    private static List<Route> gatherParentRoutes(Individual parentA, Individual parentB, String orderId, Random rnd) {
-        List<Route> combined = new ArrayList<>();
-        OrderPlan planA = findPlan(parentA, orderId);
-        OrderPlan planB = findPlan(parentB, orderId);
-        if (planA != null) combined.addAll(planA.getRoutes());
-        if (planB != null) combined.addAll(planB.getRoutes());
-        Collections.shuffle(combined, rnd);
-        return combined;
+    private static PlanGene findPlan(Individual individual, String orderId) {
+        return individual.planByOrder.get(orderId);
     }
 
-    private static OrderPlan findPlan(Individual individual, String orderId) {
-        for (OrderPlan plan : individual.getPlans()) {
-            if (plan.getOrderId().equals(orderId)) {
-                return plan;
-            }
+    /**
+     * Índice orderId -> plan en orden de inserción; ante ids repetidos gana el primero, como la búsqueda lineal.
+     */
+    private static Map<String, PlanGene> indexPlans(List<PlanGene> plans) {
+        Map<String, PlanGene> index = new LinkedHashMap<>(Math.max(16, plans.size() * 4 / 3 + 1));
+        for (PlanGene plan : plans) {
+            index.putIfAbsent(plan.orderId(), plan);
         }
-        return null;
+        return index;
+    }
+
+    private static Map<String, Order> indexOrders(List<Order> orders) {
+        Map<String, Order> index = new HashMap<>(Math.max(16, orders.size() * 4 / 3 + 1));
+        for (Order order : orders) {
+            index.putIfAbsent(order.getId(), order);
+        }
+        return index;
     }
 
     private static String extractOrigin(Route route) {
@@ -360,12 +576,12 @@ public class Individual {
         return Duration.between(completionInstant, dueInstant);
     }
 
-    private static Instant computeOrderCompletion(Order order, OrderPlan plan) {
+    private static Instant computeOrderCompletion(Order order, PlanGene plan) {
         Instant completion = null;
-        for (Route route : plan.getRoutes()) {
-            RouteSegment lastSegment = getLastSegment(route);
-            if (lastSegment == null) continue;
-            Instant arrival = lastSegment.getFlight().getArrivalInstant(lastSegment.getDate());
+        for (int route = 0; route < plan.routeCount(); route++) {
+            int lastLeg = plan.legEnd(route) - 1;
+            if (lastLeg < plan.legStart(route)) continue;
+            Instant arrival = plan.legFlight(lastLeg).getArrivalInstant(plan.legDate(lastLeg));
             Instant finalInstant = arrival.plus(Config.WAREHOUSE_DWELL);
             if (completion == null || finalInstant.isAfter(completion)) {
                 completion = finalInstant;
@@ -378,32 +594,24 @@ public class Individual {
         if (destinationCode == null) {
             return Duration.ZERO;
         }
-        com.morapack.skyroute.io.Airports airports = world.getAirports();
-        com.morapack.skyroute.models.Airport destination = airports.get(destinationCode);
-        com.morapack.skyroute.models.Airport origin = originCode == null || originCode.isBlank() ? null : airports.get(originCode);
-
-        if (destination == null) {
-            return Duration.ofHours(Config.INTERCONTINENTAL_SLA_HOURS);
-        }
-
-        if (origin == null) {
-            return Duration.ofHours(Config.INTERCONTINENTAL_SLA_HOURS);
-        }
-
-        String originContinent = origin.getContinent();
-        String destinationContinent = destination.getContinent();
-        if (originContinent != null && originContinent.equalsIgnoreCase(destinationContinent)) {
-            return Duration.ofHours(Config.CONTINENTAL_SLA_HOURS);
-        }
-        return Duration.ofHours(Config.INTERCONTINENTAL_SLA_HOURS);
+        return world.getNetworkIndex().sla(originCode, destinationCode);
     }
 
-    private static OrderPlan buildPlanForOrder(Order order,
+    /**
+     * Plan de la orden por hubs en orden aleatorio. Con {@code flowSplit} las órdenes grandes se reparten
+     * antes con el flujo de costo mínimo; los individuos aleatorios no lo usan, porque el reparto es
+     * determinista y todos saldrían con el mismo.
+     */
+    private static PlanGene buildPlanForOrder(Order order,
                                                RouteBuilder builder,
                                                World world,
-                                               Random rnd) {
+                                               Random rnd,
+                                               boolean flowSplit) {
         OrderPlan plan = new OrderPlan(order.getId());
         int remaining = order.getQuantity();
+        if (flowSplit) {
+            remaining -= addFlowRoutes(order, builder, plan);
+        }
         int stagnation = 0;
         while (remaining > 0) {
             List<String> hubs = new ArrayList<>(builder.productionHubs());
@@ -418,9 +626,19 @@ public class Individual {
                     break;
                 }
             }
+            if (!built) {
+                // Antes de declarar infactible: ruta de llegada más temprana desde cualquier hub
+                Route earliest = buildEarliestRoute(order, builder, remaining);
+                if (earliest != null) {
+                    plan.addRoute(earliest);
+                    remaining -= earliest.getQuantity();
+                    built = true;
+                }
+            }
             if (!built) {
                 // Infeasible: penalizar y salir
-                plan.setSlack(Duration.ofMinutes(-10_000));
+                plan.setSlack(Duration.ofMinutes(-UNPLANNED_LATENESS_MINUTES));
+                builder.release(plan);
                 plan.getRoutes().clear();
                 remaining = 0;
             } else {
@@ -428,18 +646,34 @@ public class Individual {
             }
         }
         plan.setSlack(determinePlanSlack(world, order, plan));
-        return plan;
+        return PlanGene.of(plan, world.getFlights());
+    }
+
+    /**
+     * Reparto óptimo entre hubs de una orden grande (desde FLOW_SPLIT_MIN_QUANTITY); devuelve la cantidad
+     * ruteada. Lo que el flujo no logra llevar sigue por el camino de siempre.
+     */
+    private static int addFlowRoutes(Order order, RouteBuilder builder, OrderPlan plan) {
+        if (Config.FLOW_SPLIT_MIN_QUANTITY <= 0 || order.getQuantity() < Config.FLOW_SPLIT_MIN_QUANTITY) {
+            return 0;
+        }
+        int routed = 0;
+        for (Route route : builder.buildFlowRoutes(order, order.getQuantity())) {
+            plan.addRoute(route);
+            routed += route.getQuantity();
+        }
+        return routed;
     }
 
-    private static OrderPlan buildPlanWithPreferences(Order order,
-                                                      OrderPlan preferred,
-                                                      RouteBuilder builder,
-                                                      World world,
-                                                      Random rnd) {
+    private static PlanGene buildPlanWithPreferences(Order order,
+                                                     PlanGene preferred,
+                                                     RouteBuilder builder,
+                                                     World world,
+                                                     Random rnd) {
         List<String> preferredHubs = new ArrayList<>();
         if (preferred != null) {
-            for (Route route : preferred.getRoutes()) {
-                String origin = extractOrigin(route);
+            for (int route = 0; route < preferred.routeCount(); route++) {
+                String origin = preferred.routeOrigin(route);
                 if (origin != null && !origin.isBlank()) {
                     preferredHubs.add(origin);
                 }
@@ -449,13 +683,18 @@ public class Individual {
             preferredHubs.addAll(builder.productionHubs());
         }
         Collections.shuffle(preferredHubs, rnd);
+        return buildPlanFromHubs(order, preferredHubs, builder, world);
+    }
 
+    /**
+     * Plan que prueba los hubs en el orden dado y, si ninguno tiene ruta, la de llegada más temprana.
+     */
+    static PlanGene buildPlanFromHubs(Order order, List<String> hubs, RouteBuilder builder, World world) {
         OrderPlan plan = new OrderPlan(order.getId());
         int remaining = order.getQuantity();
-        int stagnation = 0;
         while (remaining > 0) {
             boolean built = false;
-            for (String origin : preferredHubs) {
+            for (String origin : hubs) {
                 Route route = builder.buildRoute(order, origin, remaining);
                 if (route != null && route.getQuantity() > 0) {
                     plan.addRoute(route);
@@ -465,15 +704,39 @@ public class Individual {
                 }
             }
             if (!built) {
-                plan.setSlack(Duration.ofMinutes(-10_000));
+                // Antes de declarar infactible: ruta de llegada más temprana desde cualquier hub
+                Route earliest = buildEarliestRoute(order, builder, remaining);
+                if (earliest != null) {
+                    plan.addRoute(earliest);
+                    remaining -= earliest.getQuantity();
+                    built = true;
+                }
+            }
+            if (!built) {
+                plan.setSlack(Duration.ofMinutes(-UNPLANNED_LATENESS_MINUTES));
+                builder.release(plan);
                 plan.getRoutes().clear();
                 remaining = 0;
-            } else {
-                stagnation = 0;
             }
         }
         plan.setSlack(determinePlanSlack(world, order, plan));
-        return plan;
+        return PlanGene.of(plan, world.getFlights());
+    }
+
+    /**
+     * Prueba los hubs en orden de llegada más temprana; null si ninguno tiene ruta factible.
+     */
+    private static Route buildEarliestRoute(Order order, RouteBuilder builder, int quantity) {
+        Map<String, Instant> arrivals = builder.earliestArrivals(order, quantity);
+        List<String> hubs = new ArrayList<>(arrivals.keySet());
+        hubs.sort(Comparator.comparing(arrivals::get));
+        for (String hub : hubs) {
+            Route route = builder.buildEarliestRoute(order, hub, quantity);
+            if (route != null && route.getQuantity() > 0) {
+                return route;
+            }
+        }
+        return null;
     }
 
     private static Set<String> selectOrderIds(List<Order> orders, int count, Random rnd) {
@@ -488,178 +751,71 @@ public class Individual {
         return new HashSet<>(ids.subList(0, count));
     }
 
-    private static Order findOrder(List<Order> orders, String id) {
-        for (Order order : orders) {
-            if (order.getId().equals(id)) return order;
-        }
-        return null;
-    }
-
-    private static OrderPlan tryAdoptPlan(World world,
-                                          Order order,
-                                          OrderPlan source,
-                                          FlightSchedule flightSchedule,
-                                          AirportSchedule airportSchedule) {
-        if (source == null || source.getRoutes().isEmpty()) {
+    /**
+     * Reserva en los schedules los tramos de un plan ajeno. Como los planes son inmutables y la holgura
+     * depende solo de la orden y de los tramos, el plan adoptado es el mismo valor; null si no cabe
+     * (lo reservado hasta ese punto se deshace con la bitácora).
+     */
+    static PlanGene tryAdoptPlan(World world, PlanGene source, ReservationJournal journal) {
+        if (source == null || source.routeCount() == 0) {
             return null;
         }
         Airports airports = world.getAirports();
-        List<Route> adoptedRoutes = new ArrayList<>();
-        List<Runnable> rollbacks = new ArrayList<>();
+        int mark = journal.begin();
         try {
-            for (Route route : source.getRoutes()) {
-                Route clonedRoute = new Route(route.getQuantity());
-                List<RouteSegment> segmentCopies = new ArrayList<>();
-                for (RouteSegment segment : route.getSegments()) {
-                    Flight flight = segment.getFlight();
-                    LocalDate date = segment.getDate();
-                    int qty = segment.getRouteQuantity();
-                    if (flight == null || date == null || qty <= 0) {
-                        throw new IllegalStateException("Invalid segment to adopt");
-                    }
-                    if (!flightSchedule.tryReserve(flight, date, qty)) {
-                        throw new IllegalStateException("Unable to reserve flight " + flight.getId());
-                    }
-                    rollbacks.add(() -> {
-                        try {
-                            flightSchedule.release(flight, date, qty);
-                        } catch (Exception ignored) {}
-                    });
-
-                    Airport destinationAirport = airports.get(flight.getDestinationCode());
-                    if (destinationAirport == null) {
-                        throw new IllegalStateException("Unknown airport " + flight.getDestinationCode());
-                    }
-                    LocalDateTime arrivalLocal = LocalDateTime.ofInstant(flight.getArrivalInstant(date), destinationAirport.getZoneOffset());
-                    LocalDateTime departureLocal = arrivalLocal.plus(segment.isFinalLeg() ? Config.WAREHOUSE_DWELL : Config.TRANSFER_BUFFER);
-                    if (!airportSchedule.tryReserveTransit(destinationAirport.code, arrivalLocal, departureLocal, qty)) {
-                        throw new IllegalStateException("Unable to reserve airport transit for " + destinationAirport.code);
-                    }
-                    rollbacks.add(() -> {
-                        try {
-                            airportSchedule.releaseTransit(destinationAirport.code, arrivalLocal, departureLocal, qty);
-                        } catch (Exception ignored) {}
-                    });
-
-                    RouteSegment segCopy = new RouteSegment();
-                    segCopy.setFlight(flight);
-                    segCopy.setDate(date);
-                    segCopy.setRouteQuantity(qty);
-                    segCopy.setFinalLeg(segment.isFinalLeg());
-                    segCopy.setSlack(segment.getSlack());
-                    segCopy.setDeparted(segment.isDeparted());
-                    segCopy.setArrived(segment.isArrived());
-                    segCopy.setReceivedByNext(segment.isReceivedByNext());
-                    segmentCopies.add(segCopy);
+            for (int leg = 0; leg < source.legCount(); leg++) {
+                Flight flight = source.legFlight(leg);
+                int qty = source.legQuantity(leg);
+                if (qty <= 0) {
+                    throw new IllegalStateException("Invalid segment to adopt");
+                }
+                if (!journal.tryReserveFlight(flight, source.legDay(leg), qty)) {
+                    throw new IllegalStateException("Unable to reserve flight " + flight.getId());
                 }
-                clonedRoute.setSegments(segmentCopies);
-                clonedRoute.setSlack(route.getSlack());
-                adoptedRoutes.add(clonedRoute);
-            }
 
-            OrderPlan adopted = new OrderPlan(order.getId());
-            adopted.setRoutes(adoptedRoutes);
-            adopted.setSlack(determinePlanSlack(world, order, adopted));
-            return adopted;
-        } catch (Exception ex) {
-            Collections.reverse(rollbacks);
-            for (Runnable r : rollbacks) {
-                r.run();
+                Airport destinationAirport = airports.get(flight.getDestinationCode());
+                if (destinationAirport == null) {
+                    throw new IllegalStateException("Unknown airport " + flight.getDestinationCode());
+                }
+                if (!journal.tryReserveStay(destinationAirport.code, destinationAirport.getZoneOffset(),
+                        source.legArrivalMinute(leg), source.isFinalLeg(leg), qty)) {
+                    throw new IllegalStateException("Unable to reserve airport transit for " + destinationAirport.code);
+                }
             }
+            journal.commit(mark);
+            return source;
+        } catch (Exception ex) {
+            journal.rollback(mark);
             return null;
         }
     }
 
-    private static void releasePlan(World world,
-                                    OrderPlan plan,
+    static void releasePlan(World world,
+                                    PlanGene plan,
                                     FlightSchedule flightSchedule,
                                     AirportSchedule airportSchedule) {
         if (plan == null) return;
         Airports airports = world.getAirports();
-        for (Route route : plan.getRoutes()) {
-            for (RouteSegment segment : route.getSegments()) {
-                Flight flight = segment.getFlight();
-                LocalDate date = segment.getDate();
-                int qty = segment.getRouteQuantity();
-                if (flight == null || date == null || qty <= 0) {
-                    continue;
-                }
-                try {
-                    flightSchedule.release(flight, date, qty);
-                } catch (IllegalArgumentException ignored) {
-                    // Si no se puede liberar, continuamos para evitar romper el flujo
-                }
-                Airport destinationAirport = airports.get(flight.getDestinationCode());
-                if (destinationAirport != null) {
-                    LocalDateTime arrivalLocal = LocalDateTime.ofInstant(flight.getArrivalInstant(date), destinationAirport.getZoneOffset());
-                    LocalDateTime departureLocal = arrivalLocal.plus(segment.isFinalLeg() ? Config.WAREHOUSE_DWELL : Config.TRANSFER_BUFFER);
-                    try {
-                        airportSchedule.releaseTransit(destinationAirport.code, arrivalLocal, departureLocal, qty);
-                    } catch (IllegalArgumentException ignored) {
-                        // ya liberado o no reservado
-                    }
-                }
+        for (int leg = 0; leg < plan.legCount(); leg++) {
+            Flight flight = plan.legFlight(leg);
+            int qty = plan.legQuantity(leg);
+            if (flight == null || qty <= 0) {
+                continue;
             }
-        }
-    }
-
-    private static OrderPlan copyPlan(OrderPlan original) {
-        if (original == null) return null;
-        OrderPlan copy = new OrderPlan(original.getOrderId());
-        copy.setSlack(original.getSlack());
-        List<Route> routeCopies = new ArrayList<>();
-        for (Route route : original.getRoutes()) {
-            Route routeCopy = new Route(route.getQuantity());
-            routeCopy.setSlack(route.getSlack());
-            List<RouteSegment> segmentCopies = new ArrayList<>();
-            for (RouteSegment segment : route.getSegments()) {
-                RouteSegment segCopy = new RouteSegment();
-                segCopy.setFlight(segment.getFlight());
-                segCopy.setDate(segment.getDate());
-                segCopy.setRouteQuantity(segment.getRouteQuantity());
-                segCopy.setFinalLeg(segment.isFinalLeg());
-                segCopy.setSlack(segment.getSlack());
-                segCopy.setDeparted(segment.isDeparted());
-                segCopy.setArrived(segment.isArrived());
-                segCopy.setReceivedByNext(segment.isReceivedByNext());
-                segmentCopies.add(segCopy);
+            try {
+                flightSchedule.release(flight, plan.legDay(leg), qty);
+            } catch (IllegalArgumentException ignored) {
+                // Si no se puede liberar, continuamos para evitar romper el flujo
             }
-            routeCopy.setSegments(segmentCopies);
-            routeCopies.add(routeCopy);
-        }
-        copy.setRoutes(routeCopies);
-        return copy;
-    }
-
-    private static List<OrderPlan> deepCopyPlans(List<OrderPlan> originals) {
-        List<OrderPlan> copies = new ArrayList<>(originals.size());
-        for (OrderPlan plan : originals) {
-            OrderPlan copy = new OrderPlan(plan.getOrderId());
-            copy.setSlack(plan.getSlack());
-            List<Route> routeCopies = new ArrayList<>();
-            for (Route route : plan.getRoutes()) {
-                Route routeCopy = new Route(route.getQuantity());
-                routeCopy.setSlack(route.getSlack());
-                List<RouteSegment> segmentCopies = new ArrayList<>();
-                for (RouteSegment segment : route.getSegments()) {
-                    RouteSegment segCopy = new RouteSegment();
-                    segCopy.setFlight(segment.getFlight());
-                    segCopy.setDate(segment.getDate());
-                    segCopy.setRouteQuantity(segment.getRouteQuantity());
-                    segCopy.setFinalLeg(segment.isFinalLeg());
-                    segCopy.setSlack(segment.getSlack());
-                    segCopy.setDeparted(segment.isDeparted());
-                    segCopy.setArrived(segment.isArrived());
-                    segCopy.setReceivedByNext(segment.isReceivedByNext());
-                    segmentCopies.add(segCopy);
+            Airport destinationAirport = airports.get(flight.getDestinationCode());
+            if (destinationAirport != null) {
+                try {
+                    ReservationJournal.releaseStay(airportSchedule, destinationAirport.code, destinationAirport.getZoneOffset(),
+                            plan.legArrivalMinute(leg), plan.isFinalLeg(leg), qty);
+                } catch (IllegalArgumentException ignored) {
+                    // ya liberado o no reservado
                 }
-                routeCopy.setSegments(segmentCopies);
-                routeCopies.add(routeCopy);
             }
-            copy.setRoutes(routeCopies);
-            copies.add(copy);
         }
-        return copies;
     }
-
 }
@@ -0,0 +1,260 @@
+package com.morapack.skyroute.algorithm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import com.morapack.skyroute.config.*;
+import com.morapack.skyroute.models.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Modelo de islas: varias subpoblaciones evolucionan en paralelo con su propio torneo y cada
+ * {@code migrationInterval} generaciones intercambian sus mejores individuos.
+ * Cada isla tiene el tamaño de población completo, así la diversidad crece sin alargar cada generación.
+ */
+public class IslandGeneticAlgorithm implements PlanOptimizer {
+    private static final Logger log = LoggerFactory.getLogger(IslandGeneticAlgorithm.class);
+
+    public enum MigrationTopology {
+        RING,
+        RANDOM
+    }
+
+    private final World world;
+    private final List<GeneticAlgorithm> islands = new ArrayList<>();
+    private final Random rnd;
+    private int migrationInterval = Config.ISLAND_MIGRATION_INTERVAL;
+    private int migrants = Config.ISLAND_MIGRANTS;
+    private MigrationTopology topology = MigrationTopology.RING;
+    private StopReason stopReason = StopReason.GENERATION_LIMIT;
+
+    public IslandGeneticAlgorithm(World world, List<Order> demand, int islandCount) {
+        this(world, demand, islandCount, new Random());
+    }
+
+    public IslandGeneticAlgorithm(World world, List<Order> demand, int islandCount, long seed) {
+        this(world, demand, islandCount, new Random(seed));
+    }
+
+    private IslandGeneticAlgorithm(World world, List<Order> demand, int islandCount, Random rnd) {
+        if (islandCount < 1) {
+            throw new IllegalArgumentException("At least one island is required");
+        }
+        this.world = world;
+        this.rnd = rnd;
+        int workersPerIsland = Math.max(1, Config.GA_WORKERS / islandCount);
+        for (int i = 0; i < islandCount; i++) {
+            GeneticAlgorithm island = new GeneticAlgorithm(world, demand, rnd.nextLong());
+            island.setWorkers(workersPerIsland);
+            island.setLogTag("[GA-isla-" + (i + 1) + "]");
+            islands.add(island);
+        }
+    }
+
+    public void setMigrationInterval(int migrationInterval) {
+        this.migrationInterval = Math.max(1, migrationInterval);
+    }
+
+    public void setMigrants(int migrants) {
+        this.migrants = Math.max(0, migrants);
+    }
+
+    public void setTopology(MigrationTopology topology) {
+        this.topology = topology == null ? MigrationTopology.RING : topology;
+    }
+
+    @Override
+    public Individual runTimed(int populationSize, int generations, long durationMillis, Individual seed, List<Individual> carryOver, List<Order> newOrders) {
+        long deadlineNanos = durationMillis > 0 ? System.nanoTime() + durationMillis * 1_000_000L : Long.MAX_VALUE;
+        log.info("[GA-islas] runTimed start: budgetMs={} islas={} popSize={} migración cada {} gen ({} migrantes, {})",
+                durationMillis, islands.size(), populationSize, migrationInterval, migrants, topology);
+
+        List<List<Individual>> carryByIsland = splitCarryOver(carryOver);
+        ExecutorService executor = newIslandPool(islands.size());
+        try {
+            runOnIslands(executor, index -> {
+                islands.get(index).preparePopulation(populationSize, seed, carryByIsland.get(index), newOrders);
+                return null;
+            });
+
+            int done = evolveIslands(executor, populationSize, generations, deadlineNanos, () -> false);
+            log.info("[GA-islas] terminado (hasta {} generaciones por isla, motivo={})", done, stopReason);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Individual best = bestOverall();
+        log.info("[GA-islas] mejor fitness={}", best.getFitness());
+        islands.get(0).applyToWorld(best);
+        return best;
+    }
+
+    @Override
+    public Individual continueTimed(int populationSize, long durationMillis, BooleanSupplier stop) {
+        long deadlineNanos = System.nanoTime() + Math.max(0L, durationMillis) * 1_000_000L;
+        ExecutorService executor = newIslandPool(islands.size());
+        try {
+            for (GeneticAlgorithm island : islands) {
+                if (island.getPopulation().isEmpty()) {
+                    throw new IllegalStateException("No population to continue");
+                }
+                island.resetStagnation();
+            }
+            int done = evolveIslands(executor, populationSize, Integer.MAX_VALUE, deadlineNanos, stop);
+            log.info("[GA-islas] continueTimed terminado ({} generaciones por isla, motivo={})", done, stopReason);
+        } finally {
+            executor.shutdownNow();
+        }
+        return bestOverall();
+    }
+
+    /**
+     * Evoluciona las islas por épocas de {@code migrationInterval} generaciones, migrando entre épocas.
+     * Deja el motivo de término en stopReason y devuelve las generaciones corridas por isla.
+     */
+    private int evolveIslands(ExecutorService executor, int populationSize, int generations, long deadlineNanos, BooleanSupplier stop) {
+        int done = 0;
+        stopReason = StopReason.GENERATION_LIMIT;
+        while (done < generations) {
+            if (System.nanoTime() >= deadlineNanos) {
+                stopReason = StopReason.TIME_BUDGET;
+                break;
+            }
+            if (stop.getAsBoolean()) {
+                stopReason = StopReason.INTERRUPTED;
+                break;
+            }
+            int epoch = Math.min(migrationInterval, generations - done);
+            runOnIslands(executor, index -> islands.get(index).evolve(populationSize, epoch, deadlineNanos, stop));
+            done += epoch;
+            // Una isla estancada vuelve a probar tras cada migración; se corta cuando lo están todas
+            if (allIslandsStagnated()) {
+                stopReason = StopReason.STAGNATION;
+                break;
+            }
+            if (done < generations && System.nanoTime() < deadlineNanos) {
+                migrate();
+            }
+        }
+        return done;
+    }
+
+    @Override
+    public List<Individual> snapshotPopulation() {
+        List<Individual> snapshot = new ArrayList<>();
+        for (GeneticAlgorithm island : islands) {
+            snapshot.addAll(island.snapshotPopulation());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public StopReason getLastStopReason() {
+        return stopReason;
+    }
+
+    private boolean allIslandsStagnated() {
+        for (GeneticAlgorithm island : islands) {
+            if (island.getLastStopReason() != StopReason.STAGNATION) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<List<Individual>> splitCarryOver(List<Individual> carryOver) {
+        List<List<Individual>> split = new ArrayList<>();
+        for (int i = 0; i < islands.size(); i++) {
+            split.add(new ArrayList<>());
+        }
+        if (carryOver != null) {
+            for (int i = 0; i < carryOver.size(); i++) {
+                split.get(i % islands.size()).add(carryOver.get(i));
+            }
+        }
+        return split;
+    }
+
+    /**
+     * Envía copias de los mejores individuos de cada isla a su vecina (anillo) o a una isla al azar,
+     * reemplazando a los peores del destino. Los individuos no se modifican tras crearse, así que
+     * compartir la referencia entre islas es seguro.
+     */
+    private void migrate() {
+        int count = islands.size();
+        if (count < 2 || migrants == 0) {
+            return;
+        }
+        List<List<Individual>> outgoing = new ArrayList<>(count);
+        for (GeneticAlgorithm island : islands) {
+            outgoing.add(island.getPopulation().stream()
+                    .sorted(Comparator.comparingDouble(Individual::getFitness).reversed())
+                    .limit(migrants)
+                    .toList());
+        }
+        for (int source = 0; source < count; source++) {
+            int target = topology == MigrationTopology.RING
+                    ? (source + 1) % count
+                    : (source + 1 + rnd.nextInt(count - 1)) % count;
+            List<Individual> population = islands.get(target).getPopulation();
+            population.sort(Comparator.comparingDouble(Individual::getFitness));
+            List<Individual> incoming = outgoing.get(source);
+            for (int i = 0; i < incoming.size() && i < population.size(); i++) {
+                population.set(i, incoming.get(i));
+            }
+        }
+    }
+
+    private Individual bestOverall() {
+        List<Individual> all = new ArrayList<>();
+        for (GeneticAlgorithm island : islands) {
+            all.addAll(island.getPopulation());
+        }
+        return GeneticAlgorithm.bestIndividual(all);
+    }
+
+    private interface IslandTask {
+        Object run(int index);
+    }
+
+    private void runOnIslands(ExecutorService executor, IslandTask task) {
+        List<Callable<Object>> calls = new ArrayList<>(islands.size());
+        for (int i = 0; i < islands.size(); i++) {
+            final int index = i;
+            calls.add(() -> task.run(index));
+        }
+        try {
+            for (Future<Object> future : executor.invokeAll(calls)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Island GA interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Island GA failed", cause);
+        }
+    }
+
+    private static ExecutorService newIslandPool(int size) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, task -> {
+            Thread thread = new Thread(task, "ga-island-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,370 @@
+package com.morapack.skyroute.algorithm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.morapack.skyroute.config.*;
+import com.morapack.skyroute.io.NetworkIndex;
+import com.morapack.skyroute.models.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Búsqueda local sobre el mejor individuo del GA, con presupuesto propio. En cada ronda arma movimientos
+ * para las órdenes tardías: relocate (mismo hub, llegada más temprana), hub-switch (otro hub productor
+ * primero) y swap (libera también una orden a tiempo del mismo destino con holgura y reconstruye primero
+ * la tardía). Los movimientos se evalúan en paralelo, cada hilo sobre su copia de los schedules de la
+ * ronda; los que mejoran se aplican en lote si no comparten orden, vuelo-día ni aeropuerto-día con otro
+ * ya aceptado. Un movimiento mejora si baja las violaciones de SLA o, con las mismas, la tardanza total;
+ * un plan sin rutas o incompleto cuenta como violación (ver {@link Individual#lateness}).
+ */
+public class LocalSearchPolisher {
+    private static final Logger log = LoggerFactory.getLogger(LocalSearchPolisher.class);
+
+    private enum MoveType { RELOCATE, HUB_SWITCH, SWAP }
+
+    private record Move(MoveType type, String orderId, String hub, String partnerId) {
+    }
+
+    /**
+     * Resultado evaluado: planes viejos, planes nuevos y la mejora (violaciones, luego minutos de tardanza).
+     */
+    private record Evaluation(Move move, List<PlanGene> removed, List<PlanGene> added, int violationGain, long tardinessGain) {
+        boolean improves() {
+            return violationGain > 0 || (violationGain == 0 && tardinessGain > 0);
+        }
+    }
+
+    private final World world;
+    private final NetworkIndex network;
+    private final Map<String, Order> ordersById = new HashMap<>();
+    private int workers = Config.GA_WORKERS;
+
+    public LocalSearchPolisher(World world, List<Order> demand) {
+        this.world = world;
+        this.network = world.getNetworkIndex();
+        for (Order order : demand) {
+            ordersById.put(order.getId(), order);
+        }
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Pule {@code best} durante a lo sumo {@code budgetMillis}; devuelve un individuo nuevo (o el mismo si
+     * no hubo mejoras) sin tocar los schedules de {@code best} ni los del mundo.
+     */
+    public Individual polish(Individual best, long budgetMillis) {
+        if (best == null || budgetMillis <= 0) {
+            return best;
+        }
+        long deadline = System.currentTimeMillis() + budgetMillis;
+        FlightSchedule flightSchedule = best.getFlightSchedule().copy();
+        AirportSchedule airportSchedule = best.getAirportSchedule().copy();
+        ReservationJournal journal = new ReservationJournal(world.getFlights(), flightSchedule, airportSchedule);
+        Map<String, PlanGene> current = new HashMap<>();
+        for (PlanGene plan : best.genes()) {
+            current.put(plan.orderId(), plan);
+        }
+        Map<String, PlanGene> replacements = new HashMap<>();
+        int rounds = 0;
+        int applied = 0;
+        ExecutorService executor = workers > 1 ? newWorkerPool(workers) : null;
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                List<Move> moves = candidateMoves(current);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                List<Evaluation> improving = evaluate(executor, moves, current, flightSchedule, airportSchedule, deadline);
+                int accepted = applyBatch(improving, current, replacements, journal, flightSchedule, airportSchedule);
+                rounds++;
+                if (accepted == 0) {
+                    break;
+                }
+                applied += accepted;
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        if (applied == 0) {
+            log.info("[LS] sin mejoras en {} rondas (violaciones={})", rounds, lateCount(best.genes()));
+            return best;
+        }
+        Individual polished = Individual.replacePlans(best, List.copyOf(replacements.values()), flightSchedule, airportSchedule);
+        log.info("[LS] {} movimientos en {} rondas: violaciones {} -> {}", applied, rounds, lateCount(best.genes()),
+                lateCount(polished.genes()));
+        return polished;
+    }
+
+    /**
+     * Movimientos de las órdenes tardías o sin plan completo, de la más tardía a la menos, hasta el
+     * tamaño de lote.
+     */
+    private List<Move> candidateMoves(Map<String, PlanGene> current) {
+        List<PlanGene> late = new ArrayList<>();
+        Map<String, List<PlanGene>> onTimeByDestination = new HashMap<>();
+        for (PlanGene plan : current.values()) {
+            Order order = ordersById.get(plan.orderId());
+            if (order == null) {
+                continue;
+            }
+            if (lateness(plan) > 0) {
+                late.add(plan);
+            } else {
+                onTimeByDestination.computeIfAbsent(order.getDestinationCode(), key -> new ArrayList<>()).add(plan);
+            }
+        }
+        late.sort(Comparator.comparing((PlanGene plan) -> plan.routeCount() == 0)
+                .thenComparing(Comparator.comparingLong(this::lateness).reversed())
+                .thenComparing(PlanGene::orderId));
+        for (List<PlanGene> plans : onTimeByDestination.values()) {
+            plans.sort(Comparator.comparingLong(PlanGene::slackMinutes).reversed().thenComparing(PlanGene::orderId));
+        }
+        List<String> hubs = RouteBuilder.PRODUCTION_HUBS;
+        List<Move> moves = new ArrayList<>();
+        for (PlanGene plan : late.subList(0, Math.min(late.size(), Config.LOCAL_SEARCH_BATCH))) {
+            String orderId = plan.orderId();
+            String currentHub = plan.routeCount() > 0 ? plan.routeOrigin(0) : null;
+            moves.add(new Move(MoveType.RELOCATE, orderId, currentHub, null));
+            for (String hub : hubs) {
+                if (!hub.equals(currentHub)) {
+                    moves.add(new Move(MoveType.HUB_SWITCH, orderId, hub, null));
+                }
+            }
+            List<PlanGene> partners = onTimeByDestination.get(ordersById.get(orderId).getDestinationCode());
+            if (partners != null && !partners.isEmpty()) {
+                moves.add(new Move(MoveType.SWAP, orderId, currentHub, partners.get(0).orderId()));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Evalúa los movimientos repartidos entre los hilos; cada uno trabaja sobre su copia de los
+     * schedules y deshace lo que prueba, así el par maestro queda intacto durante la ronda.
+     */
+    private List<Evaluation> evaluate(ExecutorService executor, List<Move> moves, Map<String, PlanGene> current,
+                                      FlightSchedule flightSchedule, AirportSchedule airportSchedule, long deadline) {
+        if (executor == null) {
+            return sortByGain(evaluateSlice(moves, 0, 1, current, flightSchedule, airportSchedule, deadline));
+        }
+        int slices = Math.min(workers, moves.size());
+        List<Callable<List<Evaluation>>> calls = new ArrayList<>(slices);
+        for (int slice = 0; slice < slices; slice++) {
+            int first = slice;
+            calls.add(() -> evaluateSlice(moves, first, slices, current, flightSchedule.copy(), airportSchedule.copy(), deadline));
+        }
+        List<Evaluation> improving = new ArrayList<>();
+        try {
+            for (Future<List<Evaluation>> future : executor.invokeAll(calls)) {
+                improving.addAll(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Local search interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Local search failed", cause);
+        }
+        return sortByGain(improving);
+    }
+
+    private List<Evaluation> evaluateSlice(List<Move> moves, int first, int step, Map<String, PlanGene> current,
+                                           FlightSchedule flightSchedule, AirportSchedule airportSchedule, long deadline) {
+        List<Evaluation> found = new ArrayList<>();
+        for (int i = first; i < moves.size() && System.currentTimeMillis() < deadline; i += step) {
+            Evaluation evaluation = evaluate(moves.get(i), current, flightSchedule, airportSchedule);
+            if (evaluation.improves()) {
+                found.add(evaluation);
+            }
+        }
+        return found;
+    }
+
+    private static List<Evaluation> sortByGain(List<Evaluation> improving) {
+        improving.sort(Comparator.comparingInt(Evaluation::violationGain).reversed()
+                .thenComparing(Comparator.comparingLong(Evaluation::tardinessGain).reversed())
+                .thenComparing(evaluation -> evaluation.move().orderId()));
+        return improving;
+    }
+
+    /**
+     * Libera los planes del movimiento, reconstruye y mide; al terminar deja los schedules como estaban.
+     */
+    private Evaluation evaluate(Move move, Map<String, PlanGene> current,
+                                FlightSchedule flightSchedule, AirportSchedule airportSchedule) {
+        List<PlanGene> removed = new ArrayList<>(2);
+        removed.add(current.get(move.orderId()));
+        if (move.partnerId() != null) {
+            removed.add(current.get(move.partnerId()));
+        }
+        for (PlanGene plan : removed) {
+            Individual.releasePlan(world, plan, flightSchedule, airportSchedule);
+        }
+        RouteBuilder builder = new RouteBuilder(world, flightSchedule, airportSchedule, new Random(0),
+                RouteBuilder.SelectionMode.CONNECTION_SCAN);
+        List<PlanGene> added = new ArrayList<>(2);
+        for (PlanGene plan : removed) {
+            Order order = ordersById.get(plan.orderId());
+            added.add(Individual.buildPlanFromHubs(order, hubOrder(move, plan), builder, world));
+        }
+        for (PlanGene plan : added) {
+            Individual.releasePlan(world, plan, flightSchedule, airportSchedule);
+        }
+        ReservationJournal journal = new ReservationJournal(world.getFlights(), flightSchedule, airportSchedule);
+        for (PlanGene plan : removed) {
+            if (plan.routeCount() > 0 && Individual.tryAdoptPlan(world, plan, journal) == null) {
+                throw new IllegalStateException("Unable to restore plan " + plan.orderId());
+            }
+        }
+        return new Evaluation(move, removed, added, lateCount(removed) - lateCount(added),
+                tardiness(removed) - tardiness(added));
+    }
+
+    private List<String> hubOrder(Move move, PlanGene plan) {
+        List<String> hubs = new ArrayList<>(RouteBuilder.PRODUCTION_HUBS);
+        String first = move.type() == MoveType.SWAP && plan.orderId().equals(move.partnerId())
+                ? (plan.routeCount() > 0 ? plan.routeOrigin(0) : null)
+                : move.hub();
+        if (first != null && hubs.remove(first)) {
+            hubs.add(0, first);
+        }
+        return hubs;
+    }
+
+    /**
+     * Aplica en orden de mejora los movimientos que no chocan con uno ya aceptado. Si un plan nuevo no
+     * cabe (choque entre días vecinos del mismo almacén) se deshace y se vuelven a reservar los viejos.
+     */
+    private int applyBatch(List<Evaluation> improving, Map<String, PlanGene> current, Map<String, PlanGene> replacements,
+                           ReservationJournal journal,
+                           FlightSchedule flightSchedule, AirportSchedule airportSchedule) {
+        Set<String> orders = new HashSet<>();
+        Set<Long> flights = new HashSet<>();
+        Set<Long> airports = new HashSet<>();
+        int accepted = 0;
+        for (Evaluation evaluation : improving) {
+            Set<Long> moveFlights = new HashSet<>();
+            Set<Long> moveAirports = new HashSet<>();
+            boolean conflict = false;
+            for (PlanGene plan : evaluation.removed()) {
+                conflict |= orders.contains(plan.orderId()) || current.get(plan.orderId()) != plan;
+                collectKeys(plan, moveFlights, moveAirports);
+            }
+            for (PlanGene plan : evaluation.added()) {
+                collectKeys(plan, moveFlights, moveAirports);
+            }
+            if (conflict || intersects(flights, moveFlights) || intersects(airports, moveAirports)) {
+                continue;
+            }
+            if (!apply(evaluation, journal, flightSchedule, airportSchedule)) {
+                continue;
+            }
+            for (PlanGene plan : evaluation.added()) {
+                orders.add(plan.orderId());
+                current.put(plan.orderId(), plan);
+                replacements.put(plan.orderId(), plan);
+            }
+            flights.addAll(moveFlights);
+            airports.addAll(moveAirports);
+            accepted++;
+        }
+        return accepted;
+    }
+
+    private boolean apply(Evaluation evaluation, ReservationJournal journal,
+                          FlightSchedule flightSchedule, AirportSchedule airportSchedule) {
+        for (PlanGene plan : evaluation.removed()) {
+            Individual.releasePlan(world, plan, flightSchedule, airportSchedule);
+        }
+        int mark = journal.begin();
+        boolean adopted = true;
+        for (PlanGene plan : evaluation.added()) {
+            if (plan.routeCount() > 0 && Individual.tryAdoptPlan(world, plan, journal) == null) {
+                adopted = false;
+                break;
+            }
+        }
+        if (adopted) {
+            journal.commit(mark);
+            return true;
+        }
+        journal.rollback(mark);
+        for (PlanGene plan : evaluation.removed()) {
+            if (plan.routeCount() > 0 && Individual.tryAdoptPlan(world, plan, journal) == null) {
+                throw new IllegalStateException("Unable to restore plan " + plan.orderId());
+            }
+        }
+        return false;
+    }
+
+    private void collectKeys(PlanGene plan, Set<Long> flights, Set<Long> airports) {
+        for (int leg = 0; leg < plan.legCount(); leg++) {
+            flights.add(OrderInsertion.flightKey(plan, leg));
+            for (long key : OrderInsertion.airportKeys(network, plan, leg)) {
+                airports.add(key);
+            }
+        }
+    }
+
+    private static boolean intersects(Set<Long> accepted, Set<Long> keys) {
+        for (Long key : keys) {
+            if (accepted.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long lateness(PlanGene plan) {
+        Order order = ordersById.get(plan.orderId());
+        return order == null ? 0 : Individual.lateness(plan, order.getQuantity());
+    }
+
+    private int lateCount(List<PlanGene> plans) {
+        int late = 0;
+        for (PlanGene plan : plans) {
+            if (lateness(plan) > 0) {
+                late++;
+            }
+        }
+        return late;
+    }
+
+    private long tardiness(List<PlanGene> plans) {
+        long minutes = 0;
+        for (PlanGene plan : plans) {
+            minutes += lateness(plan);
+        }
+        return minutes;
+    }
+
+    private static ExecutorService newWorkerPool(int size) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, task -> {
+            Thread thread = new Thread(task, "ls-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package com.morapack.skyroute.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Flujo de costo mínimo por caminos más cortos sucesivos (Dijkstra con potenciales, cortado al
+ * asentar el sumidero). Los costos iniciales deben ser no negativos. Cada arco ocupa una posición
+ * par y su reverso la siguiente; las listas de adyacencia son enlazadas sobre arreglos y el heap
+ * guarda (distancia, nodo) en un long, así una búsqueda no asigna memoria.
+ */
+final class MinCostFlow {
+    private static final int NODE_BITS = 24;
+    private static final long NODE_MASK = (1L << NODE_BITS) - 1;
+
+    /**
+     * Camino de la descomposición del flujo: arcos de la fuente al sumidero y unidades que lleva.
+     */
+    record Path(int[] edges, int amount) {
+    }
+
+    private final int nodeCount;
+    private final int[] firstEdge;
+    private int[] nextEdge = new int[16];
+    private int[] head = new int[16];
+    private int[] capacity = new int[16];
+    private int[] original = new int[16];
+    private long[] cost = new long[16];
+    private int edgeCount;
+
+    MinCostFlow(int nodeCount) {
+        if (nodeCount > NODE_MASK) {
+            throw new IllegalArgumentException("Too many nodes: " + nodeCount);
+        }
+        this.nodeCount = nodeCount;
+        this.firstEdge = new int[nodeCount];
+        Arrays.fill(firstEdge, -1);
+    }
+
+    /**
+     * Agrega el arco y devuelve su índice (el reverso es índice + 1).
+     */
+    int addEdge(int from, int to, int edgeCapacity, long edgeCost) {
+        if (edgeCost < 0) {
+            throw new IllegalArgumentException("Negative edge cost");
+        }
+        ensureCapacity(edgeCount + 2);
+        int edge = edgeCount;
+        link(edge, from, to, edgeCapacity, edgeCost);
+        link(edge + 1, to, from, 0, -edgeCost);
+        edgeCount += 2;
+        return edge;
+    }
+
+    int head(int edge) {
+        return head[edge];
+    }
+
+    int flow(int edge) {
+        return original[edge] - capacity[edge];
+    }
+
+    /**
+     * Envía hasta {@code limit} unidades de {@code source} a {@code sink} al menor costo; devuelve
+     * cuántas unidades pasaron.
+     */
+    int solve(int source, int sink, int limit) {
+        long[] potential = new long[nodeCount];
+        long[] distance = new long[nodeCount];
+        int[] via = new int[nodeCount];
+        long[] heap = new long[Math.max(16, edgeCount)];
+        int sent = 0;
+        while (sent < limit) {
+            Arrays.fill(distance, Long.MAX_VALUE);
+            distance[source] = 0;
+            int size = 0;
+            heap[size++] = source;
+            while (size > 0) {
+                long top = heap[0];
+                heap[0] = heap[--size];
+                siftDown(heap, size);
+                int node = (int) (top & NODE_MASK);
+                if ((top >>> NODE_BITS) > distance[node]) {
+                    continue;
+                }
+                if (node == sink) {
+                    break;
+                }
+                for (int edge = firstEdge[node]; edge >= 0; edge = nextEdge[edge]) {
+                    if (capacity[edge] <= 0) {
+                        continue;
+                    }
+                    int next = head[edge];
+                    long candidate = distance[node] + cost[edge] + potential[node] - potential[next];
+                    if (candidate < distance[next]) {
+                        distance[next] = candidate;
+                        via[next] = edge;
+                        if (size == heap.length) {
+                            heap = Arrays.copyOf(heap, size * 2);
+                        }
+                        heap[size] = (candidate << NODE_BITS) | next;
+                        siftUp(heap, size++);
+                    }
+                }
+            }
+            if (distance[sink] == Long.MAX_VALUE) {
+                break;
+            }
+            // Corte en el sumidero: los nodos sin asentar suben como él y los costos reducidos siguen >= 0
+            for (int node = 0; node < nodeCount; node++) {
+                potential[node] += Math.min(distance[node], distance[sink]);
+            }
+            int push = limit - sent;
+            for (int node = sink; node != source; node = head[via[node] ^ 1]) {
+                push = Math.min(push, capacity[via[node]]);
+            }
+            for (int node = sink; node != source; node = head[via[node] ^ 1]) {
+                capacity[via[node]] -= push;
+                capacity[via[node] ^ 1] += push;
+            }
+            sent += push;
+        }
+        return sent;
+    }
+
+    /**
+     * Descompone el flujo en caminos fuente-sumidero (el grafo debe ser acíclico, como el expandido
+     * en el tiempo). Consume el flujo: solo se llama una vez, después de {@link #solve}.
+     */
+    List<Path> paths(int source, int sink) {
+        List<Path> paths = new ArrayList<>();
+        int[] edges = new int[nodeCount];
+        while (true) {
+            int length = 0;
+            int amount = Integer.MAX_VALUE;
+            int node = source;
+            while (node != sink) {
+                int next = -1;
+                for (int edge = firstEdge[node]; edge >= 0; edge = nextEdge[edge]) {
+                    if ((edge & 1) == 0 && flow(edge) > 0) {
+                        next = edge;
+                        break;
+                    }
+                }
+                if (next < 0) {
+                    return paths;
+                }
+                edges[length++] = next;
+                amount = Math.min(amount, flow(next));
+                node = head[next];
+            }
+            for (int i = 0; i < length; i++) {
+                original[edges[i]] -= amount;
+            }
+            paths.add(new Path(Arrays.copyOf(edges, length), amount));
+        }
+    }
+
+    private void link(int edge, int from, int to, int edgeCapacity, long edgeCost) {
+        head[edge] = to;
+        capacity[edge] = edgeCapacity;
+        original[edge] = edgeCapacity;
+        cost[edge] = edgeCost;
+        nextEdge[edge] = firstEdge[from];
+        firstEdge[from] = edge;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        long value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long value = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= value) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= head.length) {
+            return;
+        }
+        int grown = Math.max(size, head.length * 2);
+        nextEdge = Arrays.copyOf(nextEdge, grown);
+        head = Arrays.copyOf(head, grown);
+        capacity = Arrays.copyOf(capacity, grown);
+        original = Arrays.copyOf(original, grown);
+        cost = Arrays.copyOf(cost, grown);
+    }
+}
@@ -0,0 +1,50 @@
+package com.morapack.skyroute.algorithm;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.morapack.skyroute.config.*;
+import com.morapack.skyroute.models.Order;
+
+/**
+ * Motor de optimización elegible por solicitud.
+ */
+public enum OptimizerEngine {
+    // GA (descompuesto por grupos desde Config.DECOMPOSITION_MIN_ORDERS órdenes; si no, islas si Config.ISLAND_COUNT > 1), ver create
+    GENETIC,
+    // Adaptive Large Neighborhood Search sobre una sola solución
+    ALNS;
+
+    /**
+     * Optimizador del motor para la demanda dada; la simulación y el planificador lo eligen aquí para que
+     * la misma entrada use siempre la misma variante.
+     */
+    public PlanOptimizer create(World world, List<Order> demand) {
+        if (this == ALNS) {
+            return new AlnsOptimizer(world, demand);
+        }
+        if (demand.size() >= Config.DECOMPOSITION_MIN_ORDERS) {
+            return new DecomposedGeneticAlgorithm(world, demand);
+        }
+        if (Config.ISLAND_COUNT > 1) {
+            return new IslandGeneticAlgorithm(world, demand, Config.ISLAND_COUNT);
+        }
+        GeneticAlgorithm ga = new GeneticAlgorithm(world, demand);
+        ga.setWorkers(Config.GA_WORKERS);
+        return ga;
+    }
+
+    /**
+     * Motor por nombre sin distinguir mayúsculas; GENETIC si viene vacío.
+     */
+    public static OptimizerEngine fromName(String name) {
+        if (name == null || name.isBlank()) {
+            return GENETIC;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown optimizer engine: " + name);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.morapack.skyroute.algorithm;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.morapack.skyroute.config.*;
+import com.morapack.skyroute.io.NetworkIndex;
+import com.morapack.skyroute.models.*;
+
+/**
+ * Inserta órdenes sin plan sobre un par de schedules. Cada opción de una orden es el plan construido
+ * priorizando uno de los hubs productores; se valora con {@link Individual#cost} (a tiempo antes que tarde,
+ * menos atraso antes que más, más holgura antes que menos) y se deshace enseguida.
+ * Greedy recorre las órdenes por creación y fija la mejor opción de cada una; regret-k fija primero
+ * la orden que más pierde si no recibe su mejor opción. La opción elegida se vuelve a reservar tal cual
+ * con la bitácora. Regret-k guarda las opciones de cada pendiente y solo recalcula las que comparten un
+ * vuelo-día o un aeropuerto-día con lo recién reservado.
+ */
+final class OrderInsertion {
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private final World world;
+    private final RouteBuilder builder;
+    private final FlightSchedule flightSchedule;
+    private final AirportSchedule airportSchedule;
+    private final ReservationJournal journal;
+
+    OrderInsertion(World world, RouteBuilder builder, FlightSchedule flightSchedule, AirportSchedule airportSchedule) {
+        this.world = world;
+        this.builder = builder;
+        this.flightSchedule = flightSchedule;
+        this.airportSchedule = airportSchedule;
+        this.journal = new ReservationJournal(world.getFlights(), flightSchedule, airportSchedule);
+    }
+
+    List<PlanGene> greedy(List<Order> orders) {
+        List<Order> pending = new ArrayList<>(orders);
+        pending.sort(Comparator.comparing(Order::getCreationUtc));
+        List<PlanGene> inserted = new ArrayList<>(pending.size());
+        for (Order order : pending) {
+            inserted.add(commit(order, options(order).get(0)));
+        }
+        return inserted;
+    }
+
+    /**
+     * Regret-k: el arrepentimiento de una orden es la suma de lo que pierde su mejor opción frente a
+     * la 2.ª, ..., k-ésima. Devuelve los planes en el orden de {@code orders}.
+     */
+    List<PlanGene> regret(List<Order> orders, int k) {
+        int count = orders.size();
+        PlanGene[] inserted = new PlanGene[count];
+        List<PlanGene>[] cached = newOptionsArray(count);
+        long[] regrets = new long[count];
+        boolean[] done = new boolean[count];
+        for (int step = 0; step < count; step++) {
+            int chosen = -1;
+            for (int i = 0; i < count; i++) {
+                if (done[i]) {
+                    continue;
+                }
+                Order order = orders.get(i);
+                if (cached[i] == null) {
+                    cached[i] = options(order);
+                    regrets[i] = regretOf(order, cached[i], k);
+                }
+                boolean better = chosen < 0
+                        || regrets[i] > regrets[chosen]
+                        || (regrets[i] == regrets[chosen]
+                        && bestOf(order, cached[i]) < bestOf(orders.get(chosen), cached[chosen]));
+                if (better) {
+                    chosen = i;
+                }
+            }
+            PlanGene plan = commit(orders.get(chosen), cached[chosen].get(0));
+            inserted[chosen] = plan;
+            done[chosen] = true;
+            invalidate(cached, done, plan);
+        }
+        return List.of(inserted);
+    }
+
+    private static long regretOf(Order order, List<PlanGene> options, int k) {
+        long best = bestOf(order, options);
+        long regret = 0;
+        for (int j = 1; j < Math.min(k, options.size()); j++) {
+            regret += Individual.cost(options.get(j), order.getQuantity()) - best;
+        }
+        return regret;
+    }
+
+    private static long bestOf(Order order, List<PlanGene> options) {
+        return Individual.cost(options.get(0), order.getQuantity());
+    }
+
+    /**
+     * Descarta las opciones guardadas que comparten un vuelo-día o un aeropuerto-día (ver
+     * {@link #airportKeys}) con el plan reservado. Cada tramo reserva el almacén solo durante su estadía
+     * y el RouteBuilder revisa cada estadía solo en su propio intervalo, así que una opción sin claves
+     * en común sigue siendo factible; y como reservar solo quita capacidad, tampoco puede aparecer una
+     * opción mejor que la guardada.
+     */
+    private void invalidate(List<PlanGene>[] cached, boolean[] done, PlanGene reserved) {
+        if (reserved.legCount() == 0) {
+            return;
+        }
+        Set<Long> flights = new HashSet<>();
+        Set<Long> airports = new HashSet<>();
+        for (int leg = 0; leg < reserved.legCount(); leg++) {
+            flights.add(flightKey(reserved, leg));
+            for (long key : airportKeys(world.getNetworkIndex(), reserved, leg)) {
+                airports.add(key);
+            }
+        }
+        for (int i = 0; i < cached.length; i++) {
+            if (done[i] || cached[i] == null) {
+                continue;
+            }
+            boolean touched = false;
+            for (PlanGene option : cached[i]) {
+                for (int leg = 0; leg < option.legCount() && !touched; leg++) {
+                    touched = flights.contains(flightKey(option, leg));
+                    for (long key : airportKeys(world.getNetworkIndex(), option, leg)) {
+                        touched |= airports.contains(key);
+                    }
+                }
+            }
+            if (touched) {
+                cached[i] = null;
+            }
+        }
+    }
+
+    static long flightKey(PlanGene plan, int leg) {
+        return ((long) plan.legFlightIndex(leg) << 32) | (plan.legDay(leg) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Aeropuerto-días (día UTC) de la estadía del tramo en su destino, desde la llegada hasta que sigue
+     * por transbordo o se entrega; dos claves si la estadía cruza la medianoche. Se usa la llegada y
+     * no el día de salida del vuelo, que puede ser el anterior.
+     */
+    static long[] airportKeys(NetworkIndex network, PlanGene plan, int leg) {
+        Flight flight = plan.legFlight(leg);
+        long airport = (long) network.indexOf(flight.getDestinationCode()) << 32;
+        long arrival = flight.getArrivalInstant(plan.legDate(leg)).getEpochSecond() / 60;
+        Duration stay = plan.isFinalLeg(leg) ? Config.WAREHOUSE_DWELL : Config.TRANSFER_BUFFER;
+        long firstDay = Math.floorDiv(arrival, MINUTES_PER_DAY);
+        long lastDay = Math.floorDiv(arrival + stay.toMinutes() - 1, MINUTES_PER_DAY);
+        if (lastDay == firstDay) {
+            return new long[]{airport | (firstDay & 0xFFFFFFFFL)};
+        }
+        return new long[]{airport | (firstDay & 0xFFFFFFFFL), airport | (lastDay & 0xFFFFFFFFL)};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<PlanGene>[] newOptionsArray(int count) {
+        return (List<PlanGene>[]) new List<?>[count];
+    }
+
+    /**
+     * Una opción por hub productor, de menor a mayor costo. Tras cada intento se restauran los schedules
+     * desde una copia (barata: almacenamiento persistente), lo que deshace también las reservas de rutas
+     * parciales de un plan que terminó infactible.
+     */
+    List<PlanGene> options(Order order) {
+        List<String> hubs = builder.productionHubs();
+        List<PlanGene> options = new ArrayList<>(hubs.size());
+        FlightSchedule flightsBefore = flightSchedule.copy();
+        AirportSchedule airportsBefore = airportSchedule.copy();
+        for (String hub : hubs) {
+            options.add(Individual.buildPlanFromHubs(order, List.of(hub), builder, world));
+            flightSchedule.applyFrom(flightsBefore);
+            airportSchedule.applyFrom(airportsBefore);
+        }
+        options.sort(Comparator.comparingLong(plan -> Individual.cost(plan, order.getQuantity())));
+        return options;
+    }
+
+    private PlanGene commit(Order order, PlanGene option) {
+        if (option.routeCount() == 0) {
+            return option;
+        }
+        PlanGene adopted = Individual.tryAdoptPlan(world, option, journal);
+        if (adopted != null) {
+            return adopted;
+        }
+        // Solo si las liberaciones no dejaron el schedule igual: reconstruir desde el mismo hub
+        String origin = option.routeOrigin(0);
+        List<String> hubs = origin != null ? List.of(origin) : builder.productionHubs();
+        return Individual.buildPlanFromHubs(order, hubs, builder, world);
+    }
+}
@@ -0,0 +1,208 @@
+package com.morapack.skyroute.algorithm;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import com.morapack.skyroute.io.FlightTimetable;
+import com.morapack.skyroute.io.Flights;
+import com.morapack.skyroute.models.*;
+
+/**
+ * Plan de una orden dentro del GA como valor inmutable: padres e hijos comparten la misma instancia
+ * mientras la orden no se reconstruya. Se guarda en arreglos primitivos: por ruta (cantidad, fin de sus
+ * tramos) y por tramo (índice de vuelo en Flights, epoch day, cantidad, tramo final y llegada UTC en
+ * minutos epoch, para reservar y liberar el almacén sin recalcular horas); las holguras van en
+ * nanosegundos. Las entidades JPA ({@link OrderPlan}) se generan solo al exportar.
+ * La huella de 64 bits suma una clave pseudoaleatoria por ruta y por tramo (orden, vuelo, día,
+ * cantidad); el individuo combina las huellas de sus planes con XOR.
+ */
+final class PlanGene {
+    private static final int ROUTE_FIELDS = 2;
+    private static final int LEG_FIELDS = 5;
+
+    private final String orderId;
+    private final Flights flights;
+    // [cantidad, fin de tramos] por ruta
+    private final int[] routes;
+    // [vuelo, día, cantidad, final, llegada] por tramo
+    private final int[] legs;
+    // holgura del plan y luego la de cada ruta
+    private final long[] slacks;
+    private final long fingerprint;
+
+    private PlanGene(String orderId, Flights flights, int[] routes, int[] legs, long[] slacks) {
+        this.orderId = orderId;
+        this.flights = flights;
+        this.routes = routes;
+        this.legs = legs;
+        this.slacks = slacks;
+        this.fingerprint = fingerprint(orderId, routes, legs);
+    }
+
+    /**
+     * Codifica un plan recién construido; el plan de trabajo puede descartarse después.
+     * La holgura de cada tramo no se guarda: es la de su ruta en el último tramo y cero en los demás,
+     * como la deja la evaluación del plan.
+     */
+    static PlanGene of(OrderPlan plan, Flights flights) {
+        int routeCount = plan.getRoutes().size();
+        int legCount = 0;
+        for (Route route : plan.getRoutes()) {
+            legCount += route.getSegments().size();
+        }
+        int[] routes = new int[routeCount * ROUTE_FIELDS];
+        int[] legs = new int[legCount * LEG_FIELDS];
+        long[] slacks = new long[routeCount + 1];
+        slacks[0] = plan.getSlack().toNanos();
+        int leg = 0;
+        for (int r = 0; r < routeCount; r++) {
+            Route route = plan.getRoutes().get(r);
+            for (RouteSegment segment : route.getSegments()) {
+                int flightIndex = segment.getFlight().getIndex();
+                if (flightIndex < 0) {
+                    throw new IllegalStateException("Flight not registered: " + segment.getFlight().getId());
+                }
+                legs[leg * LEG_FIELDS] = flightIndex;
+                legs[leg * LEG_FIELDS + 1] = Math.toIntExact(segment.getDate().toEpochDay());
+                legs[leg * LEG_FIELDS + 2] = segment.getRouteQuantity();
+                legs[leg * LEG_FIELDS + 3] = segment.isFinalLeg() ? 1 : 0;
+                legs[leg * LEG_FIELDS + 4] = FlightTimetable.arrivalMinute(segment.getFlight(), segment.getDate().toEpochDay());
+                leg++;
+            }
+            routes[r * ROUTE_FIELDS] = route.getQuantity();
+            routes[r * ROUTE_FIELDS + 1] = leg;
+            slacks[r + 1] = route.getSlack().toNanos();
+        }
+        return new PlanGene(plan.getOrderId(), flights, routes, legs, slacks);
+    }
+
+    OrderPlan toEntity() {
+        OrderPlan plan = new OrderPlan(orderId);
+        plan.setSlack(slack());
+        for (int r = 0; r < routeCount(); r++) {
+            Route route = new Route(routeQuantity(r));
+            route.setSlack(routeSlack(r));
+            int last = legEnd(r) - 1;
+            for (int leg = legStart(r); leg <= last; leg++) {
+                RouteSegment segment = new RouteSegment(legFlight(leg), legDate(leg), legQuantity(leg), isFinalLeg(leg));
+                segment.setSlack(leg == last ? route.getSlack() : Duration.ZERO);
+                route.add(segment);
+            }
+            plan.addRoute(route);
+        }
+        return plan;
+    }
+
+    String orderId() {
+        return orderId;
+    }
+
+    long fingerprint() {
+        return fingerprint;
+    }
+
+    Duration slack() {
+        return Duration.ofNanos(slacks[0]);
+    }
+
+    long slackMinutes() {
+        return Duration.ofNanos(slacks[0]).toMinutes();
+    }
+
+    int plannedQuantity() {
+        int total = 0;
+        for (int r = 0; r < routeCount(); r++) {
+            total += routeQuantity(r);
+        }
+        return total;
+    }
+
+    int routeCount() {
+        return routes.length / ROUTE_FIELDS;
+    }
+
+    int routeQuantity(int route) {
+        return routes[route * ROUTE_FIELDS];
+    }
+
+    Duration routeSlack(int route) {
+        return Duration.ofNanos(slacks[route + 1]);
+    }
+
+    int legStart(int route) {
+        return route == 0 ? 0 : routes[(route - 1) * ROUTE_FIELDS + 1];
+    }
+
+    int legEnd(int route) {
+        return routes[route * ROUTE_FIELDS + 1];
+    }
+
+    /**
+     * Aeropuerto de salida de la ruta o null si no tiene tramos.
+     */
+    String routeOrigin(int route) {
+        return legStart(route) == legEnd(route) ? null : legFlight(legStart(route)).getOriginCode();
+    }
+
+    int legCount() {
+        return legs.length / LEG_FIELDS;
+    }
+
+    int legFlightIndex(int leg) {
+        return legs[leg * LEG_FIELDS];
+    }
+
+    Flight legFlight(int leg) {
+        return flights.getByIndex(legs[leg * LEG_FIELDS]);
+    }
+
+    long legDay(int leg) {
+        return legs[leg * LEG_FIELDS + 1];
+    }
+
+    LocalDate legDate(int leg) {
+        return LocalDate.ofEpochDay(legs[leg * LEG_FIELDS + 1]);
+    }
+
+    int legQuantity(int leg) {
+        return legs[leg * LEG_FIELDS + 2];
+    }
+
+    boolean isFinalLeg(int leg) {
+        return legs[leg * LEG_FIELDS + 3] != 0;
+    }
+
+    /**
+     * Llegada UTC del tramo en minutos epoch.
+     */
+    int legArrivalMinute(int leg) {
+        return legs[leg * LEG_FIELDS + 4];
+    }
+
+    /**
+     * Claves estilo Zobrist derivadas por mezcla en lugar de tabla: la de cada elemento depende de la
+     * orden y de sus campos, y se suman (no XOR) para que dos tramos iguales del mismo plan no se anulen.
+     */
+    private static long fingerprint(String orderId, int[] routes, int[] legs) {
+        long order = 0xCBF29CE484222325L;
+        for (int i = 0; i < orderId.length(); i++) {
+            order = (order ^ orderId.charAt(i)) * 0x100000001B3L;
+        }
+        order = mix(order);
+        long hash = order;
+        for (int i = 0; i < routes.length; i += ROUTE_FIELDS) {
+            hash += mix(order ^ mix(~(long) routes[i]));
+        }
+        for (int i = 0; i < legs.length; i += LEG_FIELDS) {
+            long leg = ((long) legs[i] << 32) ^ (legs[i + 1] & 0xFFFFFFFFL);
+            hash += mix(order ^ mix(leg) ^ mix(((long) legs[i + 2] << 1) | legs[i + 3]));
+        }
+        return hash;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,33 @@
+package com.morapack.skyroute.algorithm;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import com.morapack.skyroute.models.Order;
+
+/**
+ * Contrato común de los motores de optimización que usan la simulación y el planificador.
+ * La población devuelta por snapshotPopulation se pasa como carryOver en la siguiente corrida.
+ */
+public interface PlanOptimizer {
+
+    Individual runTimed(int populationSize,
+                        int generations,
+                        long durationMillis,
+                        Individual seed,
+                        List<Individual> carryOver,
+                        List<Order> newOrders);
+
+    /**
+     * Sigue evolucionando la población de la última corrida (modo anytime) hasta el presupuesto o hasta
+     * que {@code stop} devuelva true; abre una ventana de estancamiento nueva y no aplica nada al mundo.
+     */
+    Individual continueTimed(int populationSize, long durationMillis, BooleanSupplier stop);
+
+    List<Individual> snapshotPopulation();
+
+    /**
+     * Motivo por el que terminó la última llamada a runTimed.
+     */
+    StopReason getLastStopReason();
+}
@@ -0,0 +1,156 @@
+package com.morapack.skyroute.algorithm;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.morapack.skyroute.config.Config;
+import com.morapack.skyroute.io.Flights;
+import com.morapack.skyroute.models.*;
+
+/**
+ * Bitácora de reservas sobre un par FlightSchedule/AirportSchedule. Cada reserva exitosa se anota en
+ * buffers reutilizables (vuelo por índice, día, cantidad y, para almacenes, el intervalo ya calculado)
+ * para deshacerla hasta una marca sin crear lambdas ni recalcular horas locales.
+ * Uso: {@code int mark = journal.begin(); ... journal.commit(mark)} o {@code journal.rollback(mark)}.
+ */
+final class ReservationJournal {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int TRANSIT = -1;
+
+    private final Flights flights;
+    private final FlightSchedule flightSchedule;
+    private final AirportSchedule airportSchedule;
+
+    // Índice de vuelo o TRANSIT por entrada
+    private int[] flightIndex = new int[INITIAL_CAPACITY];
+    private long[] days = new long[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private String[] airports = new String[INITIAL_CAPACITY];
+    private LocalDateTime[] starts = new LocalDateTime[INITIAL_CAPACITY];
+    private LocalDateTime[] ends = new LocalDateTime[INITIAL_CAPACITY];
+    private int size;
+
+    ReservationJournal(Flights flights, FlightSchedule flightSchedule, AirportSchedule airportSchedule) {
+        this.flights = Objects.requireNonNull(flights, "flights");
+        this.flightSchedule = Objects.requireNonNull(flightSchedule, "flightSchedule");
+        this.airportSchedule = Objects.requireNonNull(airportSchedule, "airportSchedule");
+    }
+
+    /**
+     * Abre una transacción; la marca devuelta delimita lo que deshace {@link #rollback(int)}.
+     */
+    int begin() {
+        return size;
+    }
+
+    /**
+     * Confirma lo reservado desde la marca. En la transacción externa vacía la bitácora; en una anidada
+     * las entradas quedan para que la externa aún pueda deshacerlas.
+     */
+    void commit(int mark) {
+        checkMark(mark);
+        if (mark == 0) {
+            clear(0);
+        }
+    }
+
+    /**
+     * Libera, en orden inverso, todas las reservas hechas desde la marca.
+     */
+    void rollback(int mark) {
+        checkMark(mark);
+        for (int i = size - 1; i >= mark; i--) {
+            if (flightIndex[i] == TRANSIT) {
+                airportSchedule.releaseTransit(airports[i], starts[i], ends[i], quantities[i]);
+            } else {
+                flightSchedule.release(flights.getByIndex(flightIndex[i]), days[i], quantities[i]);
+            }
+        }
+        clear(mark);
+    }
+
+    boolean tryReserveFlight(Flight flight, long epochDay, int quantity) {
+        if (flight.getIndex() < 0) {
+            throw new IllegalArgumentException("Flight not registered: " + flight.getId());
+        }
+        if (!flightSchedule.tryReserve(flight, epochDay, quantity)) {
+            return false;
+        }
+        if (quantity > 0) {
+            append(flight.getIndex(), epochDay, quantity, null, null, null);
+        }
+        return true;
+    }
+
+    boolean tryReserveTransit(String airportId, LocalDateTime start, LocalDateTime end, int quantity) {
+        if (!airportSchedule.tryReserveTransit(airportId, start, end, quantity)) {
+            return false;
+        }
+        if (quantity > 0) {
+            append(TRANSIT, 0, quantity, airportId, start, end);
+        }
+        return true;
+    }
+
+    /**
+     * Reserva la estadía de un tramo en el almacén de llegada a partir de la llegada UTC en minutos epoch:
+     * el transbordo o, en el tramo final, la permanencia hasta el retiro.
+     */
+    boolean tryReserveStay(String airportId, ZoneOffset offset, int arrivalMinute, boolean finalLeg, int quantity) {
+        LocalDateTime start = LocalDateTime.ofEpochSecond(arrivalMinute * 60L, 0, offset);
+        return tryReserveTransit(airportId, start, start.plus(stay(finalLeg)), quantity);
+    }
+
+    /**
+     * Libera fuera de la bitácora la estadía de un tramo ya confirmado (la de {@link #tryReserveStay}).
+     */
+    static void releaseStay(AirportSchedule schedule, String airportId, ZoneOffset offset, int arrivalMinute,
+                            boolean finalLeg, int quantity) {
+        LocalDateTime start = LocalDateTime.ofEpochSecond(arrivalMinute * 60L, 0, offset);
+        schedule.releaseTransit(airportId, start, start.plus(stay(finalLeg)), quantity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void append(int flight, long day, int quantity, String airport, LocalDateTime start, LocalDateTime end) {
+        if (size == flightIndex.length) {
+            int capacity = size * 2;
+            flightIndex = Arrays.copyOf(flightIndex, capacity);
+            days = Arrays.copyOf(days, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            airports = Arrays.copyOf(airports, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        flightIndex[size] = flight;
+        days[size] = day;
+        quantities[size] = quantity;
+        airports[size] = airport;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    private void clear(int mark) {
+        // Solo se sueltan las referencias; los buffers se reutilizan
+        Arrays.fill(airports, mark, size, null);
+        Arrays.fill(starts, mark, size, null);
+        Arrays.fill(ends, mark, size, null);
+        size = mark;
+    }
+
+    private static Duration stay(boolean finalLeg) {
+        return finalLeg ? Config.WAREHOUSE_DWELL : Config.TRANSFER_BUFFER;
+    }
+
+    private void checkMark(int mark) {
+        if (mark < 0 || mark > size) {
+            throw new IllegalStateException("Journal mark " + mark + " is no longer valid (size " + size + ")");
+        }
+    }
+}
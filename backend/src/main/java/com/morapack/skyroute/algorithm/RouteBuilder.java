@@ -5,50 +5,76 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
-import java.util.Set;
 
 import com.morapack.skyroute.config.*;
 import com.morapack.skyroute.io.*;
 import com.morapack.skyroute.models.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 class RouteBuilder {
-    private static final List<String> PRODUCTION_HUBS = List.of("SPIM", "EBCI", "UBBB");
+    private static final Logger log = LoggerFactory.getLogger(RouteBuilder.class);
+    static final List<String> PRODUCTION_HUBS = List.of("SPIM", "EBCI", "UBBB");
     private static final int MAX_HOPS = 8;
     private static final int MAX_DAY_LOOKAHEAD = 7;
-
-    private final Flights flights;
+    private static final int MAX_RESCANS = 3;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int TRANSFER_MINUTES = Math.toIntExact(Config.TRANSFER_BUFFER.toMinutes());
+    private static final int DWELL_MINUTES = Math.toIntExact(Config.WAREHOUSE_DWELL.toMinutes());
+    // Costo por tramo en el flujo, en minutos de llegada por unidad: desempata a favor de menos escalas
+    private static final long FLOW_LEG_COST = 60;
+    // Horizonte del flujo: capacidad final alcanzable como múltiplo de la cantidad
+    private static final long FLOW_FIRST_FACTOR = 2;
+    private static final long FLOW_FACTOR_GROWTH = 4;
+    private static final long FLOW_MAX_FACTOR = 32;
+
+    private final World world;
     private final Airports airports;
+    private final NetworkIndex network;
     private final FlightSchedule flightSchedule;
     private final AirportSchedule airportSchedule;
-    private final Map<String, List<String>> reverseGraph;
+    private final ReservationJournal journal;
     private final Random rnd;
     private final SelectionMode mode;
+    private FlightTimetable timetable;
+    // Último scan (por orden y cantidad); se invalida con cada reserva de este builder
+    private Order scanOrder;
+    private int scanQuantity;
+    private ScanResult scanResult;
+    private final BitSet blockedInstances = new BitSet();
+    // Caminos a tiempo de las órdenes ya construidas por este builder (solo modo heurístico)
+    private final PathTemplates templates = new PathTemplates();
+    // Capacidad de almacén por índice de aeropuerto (se arma al primer uso del flujo)
+    private int[] storageCapacity;
 
     RouteBuilder(World world,
                  FlightSchedule flightSchedule,
                  AirportSchedule airportSchedule,
                  Random rnd,
                  SelectionMode mode) {
-        this.flights = Objects.requireNonNull(world, "world").getFlights();
+        this.world = Objects.requireNonNull(world, "world");
         this.airports = world.getAirports();
+        this.network = world.getNetworkIndex();
         this.flightSchedule = Objects.requireNonNull(flightSchedule, "flightSchedule");
         this.airportSchedule = Objects.requireNonNull(airportSchedule, "airportSchedule");
-        this.reverseGraph = buildReverseGraph();
+        this.journal = new ReservationJournal(world.getFlights(), flightSchedule, airportSchedule);
         this.rnd = Objects.requireNonNull(rnd, "rnd");
         this.mode = Objects.requireNonNull(mode, "mode");
     }
 
     Route buildRoute(Order order, String originHub, int quantity) {
+        if (mode == SelectionMode.CONNECTION_SCAN) {
+            return buildEarliestRoute(order, originHub, quantity);
+        }
         String destination = order.getDestinationCode();
         Route route = new Route(quantity);
         if (originHub.equals(destination)) {
@@ -56,78 +82,100 @@ class RouteBuilder {
         }
 
         Airport currentAirport = airports.get(originHub);
-        if (currentAirport == null) {
+        int target = network.indexOf(destination);
+        if (currentAirport == null || target < 0) {
             return null;
         }
 
         Duration overallSla = Duration.ZERO;
         Instant dueInstant = null;
-        LocalDateTime readyTime = LocalDateTime.ofInstant(order.getCreationUtc(), currentAirport.getZoneOffset())
-                .plus(Config.WAREHOUSE_DWELL);
-        Map<String, Integer> distances = computeHopDistances(destination);
-
-        String current = originHub;
-        Set<String> visited = new HashSet<>();
-        visited.add(current);
+        int[] distances = network.hopsTo(target);
+        int[] remainingMinutes = network.minMinutesTo(target);
+
+        int origin = network.indexOf(originHub);
+        int current = origin;
+        Instant readyInstant = order.getCreationUtc().plus(Config.WAREHOUSE_DWELL);
+        int readyMinute = FlightTimetable.ceilEpochMinute(readyInstant);
+        // Cota A*: si ni con los tramos más cortos se llega antes del plazo, ninguna rama cumple el SLA
+        int dueMinute = FlightTimetable.toEpochMinute(order.getCreationUtc().plus(network.sla(origin, target)));
+        if (!canArriveBy(remainingMinutes, origin, readyMinute, dueMinute)) {
+            return null;
+        }
+        if (mode == SelectionMode.HEURISTIC_APPROACH) {
+            Route cached = buildFromTemplates(order, origin, target, readyMinute, dueMinute, quantity);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        int mark = journal.begin();
+        long readyDay = Math.floorDiv(readyInstant.getEpochSecond() + network.zoneOffset(current).getTotalSeconds(), 86_400L);
+        boolean[] visited = new boolean[network.airportCount()];
+        visited[current] = true;
         int hops = 0;
 
         int currentRouteQty = quantity;
 
-        while (!current.equals(destination) && hops < MAX_HOPS) {
+        while (current != target && hops < MAX_HOPS) {
             if (dueInstant == null) {
-                Duration hopSla = slaFor(originHub, destination);
+                Duration hopSla = network.sla(origin, target);
                 overallSla = overallSla.compareTo(hopSla) > 0 ? overallSla : hopSla;
                 dueInstant = order.getCreationUtc().plus(overallSla);
             }
 
-            List<Flight> options = new ArrayList<>(flights.getByOriginCode(current));
-            if (options.isEmpty()) {
-                releaseAllocated(route);
+            Flight[] options = network.outbound(current);
+            if (options.length == 0) {
+                journal.rollback(mark);
                 return null;
             }
 
-            int currentDist = distances.getOrDefault(current, Integer.MAX_VALUE);
-            List<Flight> candidates = rankCandidates(options, currentDist, destination, distances, visited);
+            int currentDist = distances[current];
+            List<Flight> candidates = rankCandidates(options, currentDist, target, distances, visited);
             boolean reserved = false;
+            FlightTimetable instances = timetableFor(readyDay, readyDay + MAX_DAY_LOOKAHEAD);
 
             for (Flight candidate : candidates) {
-                LocalDate date = readyTime.toLocalDate();
+                long day = readyDay;
                 int attempts = 0;
                 while (attempts < MAX_DAY_LOOKAHEAD) {
-                    LocalDateTime departureLocal = toLocal(candidate.getDepartureInstant(date), currentAirport.getZoneOffset());
-                    if (departureLocal.isBefore(readyTime)) {
-                        date = date.plusDays(1);
+                    int instance = instances.instance(candidate, day);
+                    if (instances.isCancelled(instance) || instances.departureMinute(instance) < readyMinute) {
+                        day++;
                         attempts++;
                         continue;
                     }
+                    // Los días siguientes del mismo vuelo llegan aún más tarde: se descarta el candidato
+                    int next = network.destinationOf(candidate);
+                    int nextReady = instances.arrivalMinute(instance) + (next == target ? 0 : TRANSFER_MINUTES);
+                    if (!canArriveBy(remainingMinutes, next, nextReady, dueMinute)) {
+                        break;
+                    }
 
-                    int availableFlight = flightSchedule.getRemainingCapacity(candidate, date);
+                    int availableFlight = flightSchedule.getRemainingCapacity(candidate, day);
                     if (availableFlight <= 0) {
-                        date = date.plusDays(1);
+                        day++;
                         attempts++;
                         continue;
                     }
 
                     int sendQty = Math.min(currentRouteQty, availableFlight);
                     if (sendQty <= 0) {
-                        date = date.plusDays(1);
+                        day++;
                         attempts++;
                         continue;
                     }
 
-                    boolean finalLeg = candidate.getDestinationCode().equals(destination);
-                    if (reserveSegment(route, candidate, date, sendQty, finalLeg, dueInstant)) {
-                        current = candidate.getDestinationCode();
-                        currentAirport = airports.get(current);
-                        LocalDateTime arrivalLocal = toLocal(candidate.getArrivalInstant(date), currentAirport.getZoneOffset());
-                        readyTime = arrivalLocal.plus(finalLeg ? Config.WAREHOUSE_DWELL : Config.TRANSFER_BUFFER);
-                        visited.add(current);
+                    boolean finalLeg = network.destinationOf(candidate) == target;
+                    if (reserveSegment(route, instances, instance, sendQty, finalLeg, dueInstant)) {
+                        current = network.destinationOf(candidate);
+                        readyMinute = instances.arrivalMinute(instance) + (finalLeg ? DWELL_MINUTES : TRANSFER_MINUTES);
+                        readyDay = Math.floorDiv(readyMinute + network.zoneOffset(current).getTotalSeconds() / 60, 1_440);
+                        visited[current] = true;
                         currentRouteQty = sendQty;
                         reserved = true;
                         break;
                     }
 
-                    date = date.plusDays(1);
+                    day++;
                     attempts++;
                 }
                 if (reserved) {
@@ -136,135 +184,750 @@ class RouteBuilder {
             }
 
             if (!reserved) {
-                releaseAllocated(route);
+                journal.rollback(mark);
                 return null;
             }
 
             hops++;
         }
 
-        if (!current.equals(destination)) {
-            releaseAllocated(route);
+        if (current != target) {
+            journal.rollback(mark);
             return null;
         }
 
+        journal.commit(mark);
         route.setQuantity(currentRouteQty);
+        rememberTemplate(origin, target, FlightTimetable.ceilEpochMinute(readyInstant), route);
 
         return route;
     }
 
-    List<String> productionHubs() {
-        return Collections.unmodifiableList(PRODUCTION_HUBS);
+    /**
+     * Ruta de llegada más temprana desde el hub según el Connection Scan, reservada sobre los schedules.
+     * Si el almacén de una escala rechaza la carga, se descarta esa instancia y se vuelve a escanear.
+     */
+    Route buildEarliestRoute(Order order, String originHub, int quantity) {
+        String destination = order.getDestinationCode();
+        if (originHub.equals(destination)) {
+            return new Route(quantity);
+        }
+        int hub = PRODUCTION_HUBS.indexOf(originHub);
+        if (hub < 0 || network.indexOf(destination) < 0) {
+            return null;
+        }
+
+        for (int attempt = 0; attempt < MAX_RESCANS; attempt++) {
+            ScanResult scan = scanFor(order, quantity);
+            int[] path = scan.path(hub);
+            if (path == null) {
+                return null;
+            }
+            int routeQty = Math.min(quantity, scan.bottleneck(hub, flightSchedule));
+            Instant dueInstant = order.getCreationUtc().plus(network.sla(network.indexOf(originHub), scan.target));
+            Route route = new Route(routeQty);
+            int mark = journal.begin();
+            int failed = -1;
+            for (int i = 0; i < path.length && failed < 0; i++) {
+                if (!reserveSegment(route, scan.instances, path[i], routeQty, i == path.length - 1, dueInstant)) {
+                    failed = path[i];
+                }
+            }
+            scanResult = null;
+            if (failed < 0) {
+                journal.commit(mark);
+                rememberTemplate(network.indexOf(originHub), scan.target,
+                        FlightTimetable.ceilEpochMinute(order.getCreationUtc().plus(Config.WAREHOUSE_DWELL)), route);
+                return route;
+            }
+            journal.rollback(mark);
+            blockedInstances.set(failed);
+        }
+        return null;
+    }
+
+    /**
+     * Reparte la cantidad entre los hubs con un flujo de costo mínimo sobre el grafo expandido en el
+     * tiempo: un nodo por aeropuerto y minuto de salida o de carga lista, arcos de espera y un arco por
+     * instancia de vuelo con capacidad igual al mínimo entre lo que le queda al vuelo y al almacén de
+     * llegada durante el transbordo (o la permanencia final). El costo por unidad es su minuto de
+     * llegada más {@link #FLOW_LEG_COST} por tramo. Como en el flujo las unidades de distintos hubs se
+     * mezclan, se resuelve una vez por plazo: primero los hubs de SLA más corto y luego, sobre lo que
+     * quedó, los siguientes, cada uno con su propio plazo como horizonte. El horizonte llega hasta la
+     * llegada en que los vuelos finales alcanzables suman el doble de la cantidad y se amplía (x4, hasta
+     * 32 veces) mientras el flujo no la lleve entera, sin pasar del plazo; con la red saturada lo que
+     * falte queda para el llamador en vez de resolver la ventana completa. Cada camino del flujo se
+     * reserva como una ruta; los arcos finales a un mismo almacén no se limitan entre sí, así que si
+     * el almacén rechaza un camino se reserva lo que aún cabe y el resto queda para el llamador.
+     */
+    List<Route> buildFlowRoutes(Order order, int quantity) {
+        int target = network.indexOf(order.getDestinationCode());
+        if (target < 0 || quantity <= 0) {
+            return List.of();
+        }
+        int hubCount = PRODUCTION_HUBS.size();
+        int[] hubAirports = new int[hubCount];
+        Duration[] slas = new Duration[hubCount];
+        for (int hub = 0; hub < hubCount; hub++) {
+            hubAirports[hub] = network.indexOf(PRODUCTION_HUBS.get(hub));
+            if (hubAirports[hub] == target) {
+                return List.of(new Route(quantity));
+            }
+            slas[hub] = network.sla(hubAirports[hub], target);
+        }
+        int start = FlightTimetable.ceilEpochMinute(order.getCreationUtc().plus(Config.WAREHOUSE_DWELL));
+        long startDay = Math.floorDiv(start, MINUTES_PER_DAY);
+        FlightTimetable instances = timetableFor(startDay - 1, startDay + MAX_DAY_LOOKAHEAD + 2);
+
+        List<Route> routes = new ArrayList<>();
+        int remaining = quantity;
+        for (Duration sla : Arrays.stream(slas).distinct().sorted().toList()) {
+            int[] sources = new int[hubCount];
+            for (int hub = 0; hub < hubCount; hub++) {
+                sources[hub] = slas[hub].equals(sla) ? hubAirports[hub] : -1;
+            }
+            int end = Math.min(FlightTimetable.toEpochMinute(order.getCreationUtc().plus(sla)),
+                    start + MAX_DAY_LOOKAHEAD * MINUTES_PER_DAY);
+            Instant dueInstant = order.getCreationUtc().plus(sla);
+            remaining -= reserveFlow(routes, instances, target, sources, start, end, remaining, dueInstant);
+            if (remaining == 0) {
+                break;
+            }
+        }
+        scanResult = null;
+        return routes;
+    }
+
+    /**
+     * Resuelve el flujo desde {@code sources} con horizonte {@code end} y reserva sus caminos como rutas;
+     * devuelve las unidades reservadas.
+     */
+    private int reserveFlow(List<Route> routes, FlightTimetable instances, int target, int[] sources,
+                            int start, int end, int quantity, Instant dueInstant) {
+        FlowNetwork solved = null;
+        for (long factor = FLOW_FIRST_FACTOR; factor <= FLOW_MAX_FACTOR && (solved == null || solved.sent < quantity); factor *= FLOW_FACTOR_GROWTH) {
+            int horizon = flowHorizon(instances, target, sources, start, end, factor * quantity);
+            solved = flowNetwork(instances, target, sources, start, horizon, quantity);
+            if (horizon == end) {
+                break;
+            }
+        }
+        if (solved == null || solved.sent == 0) {
+            return 0;
+        }
+
+        int reserved = 0;
+        for (MinCostFlow.Path path : solved.flow.paths(0, 1)) {
+            int[] legs = new int[path.edges().length];
+            int legCount = 0;
+            for (int edge : path.edges()) {
+                if (edge >= solved.firstArcEdge) {
+                    legs[legCount++] = solved.arcInstance[(edge - solved.firstArcEdge) / 2];
+                }
+            }
+            legs = Arrays.copyOf(legs, legCount);
+            Route route = reservePath(instances, target, legs, path.amount(), dueInstant);
+            if (route == null) {
+                int fits = pathRoom(instances, target, legs, path.amount());
+                route = fits > 0 ? reservePath(instances, target, legs, fits, dueInstant) : null;
+            }
+            int taken = route == null ? 0 : route.getQuantity();
+            if (taken < path.amount()) {
+                log.debug("[FLOW] {}: {} de {} unidades de un camino no caben en el almacén y quedan para el llamador",
+                        network.code(target), path.amount() - taken, path.amount());
+            }
+            if (route != null) {
+                routes.add(route);
+                reserved += taken;
+            }
+        }
+        return reserved;
+    }
+
+    /**
+     * Reserva los tramos como una ruta de {@code amount} unidades; null (sin reservar nada) si alguno
+     * no cabe.
+     */
+    private Route reservePath(FlightTimetable instances, int target, int[] legs, int amount, Instant dueInstant) {
+        Route route = new Route(amount);
+        int mark = journal.begin();
+        for (int instance : legs) {
+            boolean finalLeg = network.destinationOf(instances.flight(instance)) == target;
+            if (!reserveSegment(route, instances, instance, amount, finalLeg, dueInstant)) {
+                journal.rollback(mark);
+                return null;
+            }
+        }
+        journal.commit(mark);
+        return route;
+    }
+
+    /**
+     * Unidades del camino que aún caben en sus vuelos y almacenes con las reservas actuales.
+     */
+    private int pathRoom(FlightTimetable instances, int target, int[] legs, int amount) {
+        int room = amount;
+        for (int instance : legs) {
+            Flight flight = instances.flight(instance);
+            int destination = network.destinationOf(flight);
+            int arrival = instances.arrivalMinute(instance);
+            int released = arrival + (destination == target ? DWELL_MINUTES : TRANSFER_MINUTES);
+            room = Math.min(room, Math.min(flightSchedule.getRemainingCapacity(flight, instances.epochDay(instance)),
+                    storageLeft(destination, arrival, released)));
+        }
+        return Math.max(0, room);
+    }
+
+    /**
+     * Primera llegada a destino en la que los vuelos finales alcanzables desde los hubs (sin mirar
+     * escalas llenas) suman {@code needed} unidades de capacidad; {@code end} si no llegan a sumarlas.
+     */
+    private int flowHorizon(FlightTimetable instances, int target, int[] hubAirports, int start, int end, long needed) {
+        int[] ready = readyMinutes(instances, target, hubAirports, start, end);
+        int first = instances.firstConnectionAtOrAfter(start);
+        int last = instances.firstConnectionAtOrAfter(end);
+        long[] finals = new long[Math.max(1, last - first)];
+        int count = 0;
+        for (int pos = first; pos < last; pos++) {
+            int instance = instances.connectionAt(pos);
+            Flight flight = instances.flight(instance);
+            if (network.destinationOf(flight) == target
+                    && ready[network.originOf(flight)] <= instances.departureMinute(instance)
+                    && instances.arrivalMinute(instance) <= end
+                    && flowUsable(instances, instance)) {
+                int capacity = flightSchedule.getRemainingCapacity(flight, instances.epochDay(instance));
+                finals[count++] = ((long) instances.arrivalMinute(instance) << 32) | capacity;
+            }
+        }
+        Arrays.sort(finals, 0, count);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += (int) finals[i];
+            if (total >= needed) {
+                return (int) (finals[i] >>> 32);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Hacia adelante: minuto más temprano en que la carga puede salir de cada aeropuerto.
+     */
+    private int[] readyMinutes(FlightTimetable instances, int target, int[] hubAirports, int start, int end) {
+        int[] ready = new int[network.airportCount()];
+        Arrays.fill(ready, Integer.MAX_VALUE);
+        for (int airport : hubAirports) {
+            if (airport >= 0) {
+                ready[airport] = start;
+            }
+        }
+        int last = instances.firstConnectionAtOrAfter(end);
+        for (int pos = instances.firstConnectionAtOrAfter(start); pos < last; pos++) {
+            int instance = instances.connectionAt(pos);
+            int origin = network.originOf(instances.flight(instance));
+            int destination = network.destinationOf(instances.flight(instance));
+            if (ready[origin] <= instances.departureMinute(instance) && destination != target && flowUsable(instances, instance)) {
+                ready[destination] = Math.min(ready[destination], instances.arrivalMinute(instance) + TRANSFER_MINUTES);
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Arma la red con las instancias que están en algún camino hub-destino que llega antes de
+     * {@code end} y resuelve el flujo; null si no hay ninguna.
+     */
+    private FlowNetwork flowNetwork(FlightTimetable instances, int target, int[] hubAirports, int start, int end, int quantity) {
+        int first = instances.firstConnectionAtOrAfter(start);
+        int last = instances.firstConnectionAtOrAfter(end);
+        int[] ready = readyMinutes(instances, target, hubAirports, start, end);
+        // Hacia atrás: salida más tardía desde cada aeropuerto que aún llega al destino antes de end
+        int[] latest = new int[network.airportCount()];
+        Arrays.fill(latest, Integer.MIN_VALUE);
+        boolean[] usable = new boolean[Math.max(0, last - first)];
+        int usableCount = 0;
+        for (int pos = last - 1; pos >= first; pos--) {
+            int instance = instances.connectionAt(pos);
+            Flight flight = instances.flight(instance);
+            int origin = network.originOf(flight);
+            int destination = network.destinationOf(flight);
+            int departure = instances.departureMinute(instance);
+            boolean reaches = destination == target
+                    ? instances.arrivalMinute(instance) <= end
+                    : instances.arrivalMinute(instance) + TRANSFER_MINUTES <= latest[destination];
+            if (reaches && origin != target && flowUsable(instances, instance)) {
+                latest[origin] = Math.max(latest[origin], departure);
+                if (ready[origin] <= departure) {
+                    usable[pos - first] = true;
+                    usableCount++;
+                }
+            }
+        }
+        if (usableCount == 0) {
+            return null;
+        }
+
+        // Arcos de vuelo: instancia, minuto de carga lista, capacidad y costo por unidad
+        int[] arcInstance = new int[usableCount];
+        int[] arcReleased = new int[usableCount];
+        int[] arcCapacity = new int[usableCount];
+        long[] arcCost = new long[usableCount];
+        int arcCount = 0;
+        for (int pos = first; pos < last; pos++) {
+            if (!usable[pos - first]) {
+                continue;
+            }
+            int instance = instances.connectionAt(pos);
+            Flight flight = instances.flight(instance);
+            int destination = network.destinationOf(flight);
+            boolean finalLeg = destination == target;
+            int arrival = instances.arrivalMinute(instance);
+            int released = arrival + (finalLeg ? DWELL_MINUTES : TRANSFER_MINUTES);
+            int capacity = Math.min(flightSchedule.getRemainingCapacity(flight, instances.epochDay(instance)),
+                    storageLeft(destination, arrival, released));
+            if (capacity > 0) {
+                arcInstance[arcCount] = instance;
+                arcReleased[arcCount] = released;
+                arcCapacity[arcCount] = capacity;
+                arcCost[arcCount] = (finalLeg ? arrival : released) - instances.departureMinute(instance) + FLOW_LEG_COST;
+                arcCount++;
+            }
+        }
+        if (arcCount == 0) {
+            return null;
+        }
+
+        // Nodos (aeropuerto, minuto) ordenados: 0 = fuente, 1 = sumidero, eventos desde 2
+        int hubCount = hubAirports.length;
+        long[] events = new long[2 * arcCount + hubCount];
+        int eventCount = 0;
+        for (int airport : hubAirports) {
+            if (airport >= 0) {
+                events[eventCount++] = nodeKey(airport, start);
+            }
+        }
+        for (int arc = 0; arc < arcCount; arc++) {
+            Flight flight = instances.flight(arcInstance[arc]);
+            events[eventCount++] = nodeKey(network.originOf(flight), instances.departureMinute(arcInstance[arc]));
+            if (network.destinationOf(flight) != target) {
+                events[eventCount++] = nodeKey(network.destinationOf(flight), arcReleased[arc]);
+            }
+        }
+        Arrays.sort(events, 0, eventCount);
+        int nodeCount = 0;
+        for (int i = 0; i < eventCount; i++) {
+            if (nodeCount == 0 || events[nodeCount - 1] != events[i]) {
+                events[nodeCount++] = events[i];
+            }
+        }
+
+        MinCostFlow flow = new MinCostFlow(nodeCount + 2);
+        for (int hub = 0; hub < hubCount; hub++) {
+            if (hubAirports[hub] >= 0) {
+                flow.addEdge(0, eventNode(events, nodeCount, hubAirports[hub], start), quantity, 0);
+            }
+        }
+        // Espera en el aeropuerto entre eventos consecutivos; los costos por minuto suman la llegada - start
+        for (int i = 1; i < nodeCount; i++) {
+            if ((events[i - 1] >>> 32) == (events[i] >>> 32)) {
+                flow.addEdge(i + 1, i + 2, quantity, events[i] - events[i - 1]);
+            }
+        }
+        int firstArcEdge = -1;
+        for (int arc = 0; arc < arcCount; arc++) {
+            Flight flight = instances.flight(arcInstance[arc]);
+            int from = eventNode(events, nodeCount, network.originOf(flight), instances.departureMinute(arcInstance[arc]));
+            int to = network.destinationOf(flight) == target ? 1 : eventNode(events, nodeCount, network.destinationOf(flight), arcReleased[arc]);
+            int edge = flow.addEdge(from, to, arcCapacity[arc], arcCost[arc]);
+            if (firstArcEdge < 0) {
+                firstArcEdge = edge;
+            }
+        }
+        int sent = flow.solve(0, 1, quantity);
+        return new FlowNetwork(flow, firstArcEdge, arcInstance, sent);
+    }
+
+    private boolean flowUsable(FlightTimetable instances, int instance) {
+        return !instances.isCancelled(instance)
+                && flightSchedule.getRemainingCapacity(instances.flight(instance), instances.epochDay(instance)) > 0;
+    }
+
+    /**
+     * Capacidad libre del almacén en [desde, hasta) según las reservas actuales.
+     */
+    private int storageLeft(int airport, int fromMinute, int toMinute) {
+        if (storageCapacity == null) {
+            storageCapacity = new int[network.airportCount()];
+            for (int i = 0; i < storageCapacity.length; i++) {
+                Airport known = airports.get(network.code(i));
+                storageCapacity[i] = known == null ? 0 : known.getStorageCapacity();
+            }
+        }
+        if (storageCapacity[airport] <= 0) {
+            return 0;
+        }
+        ZoneOffset offset = network.zoneOffset(airport);
+        LocalDateTime from = LocalDateTime.ofEpochSecond(fromMinute * 60L, 0, offset);
+        LocalDateTime to = LocalDateTime.ofEpochSecond(toMinute * 60L, 0, offset);
+        return storageCapacity[airport] - airportSchedule.getPeakOccupied(network.code(airport), from, to);
     }
 
-    private Map<String, Integer> computeHopDistances(String destination) {
-        // Conservamos la función para compatibilidad, aunque la prioridad ahora es por distancia geográfica.
-        Map<String, Integer> distances = new HashMap<>();
-        Deque<String> queue = new ArrayDeque<>();
-        distances.put(destination, 0);
-        queue.add(destination);
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-            int base = distances.get(current);
-            for (String origin : reverseGraph.getOrDefault(current, List.of())) {
-                if (!distances.containsKey(origin)) {
-                    distances.put(origin, base + 1);
-                    queue.add(origin);
+    private static long nodeKey(int airport, int minute) {
+        return ((long) airport << 32) | (minute & 0xFFFFFFFFL);
+    }
+
+    private static int eventNode(long[] events, int nodeCount, int airport, int minute) {
+        return Arrays.binarySearch(events, 0, nodeCount, nodeKey(airport, minute)) + 2;
+    }
+
+    /**
+     * Llegada más temprana factible a destino desde cada hub de producción (un solo scan);
+     * los hubs sin ruta dentro del horizonte no aparecen.
+     */
+    Map<String, Instant> earliestArrivals(Order order, int quantity) {
+        Map<String, Instant> arrivals = new LinkedHashMap<>();
+        if (network.indexOf(order.getDestinationCode()) < 0) {
+            return arrivals;
+        }
+        ScanResult scan = scanFor(order, quantity);
+        for (int hub = 0; hub < PRODUCTION_HUBS.size(); hub++) {
+            if (scan.arrival[hub] != Integer.MAX_VALUE) {
+                arrivals.put(PRODUCTION_HUBS.get(hub), FlightTimetable.toInstant(scan.arrival[hub]));
+            }
+        }
+        return arrivals;
+    }
+
+    private ScanResult scanFor(Order order, int quantity) {
+        if (order != scanOrder) {
+            blockedInstances.clear();
+        } else if (scanResult != null && quantity == scanQuantity) {
+            return scanResult;
+        }
+        // Primero solo vuelos que llevan toda la cantidad; si un hub no llega, se acepta envío parcial
+        ScanResult full = scan(order, quantity);
+        ScanResult result = full.complete() ? full : full.fillFrom(scan(order, 1));
+        scanOrder = order;
+        scanQuantity = quantity;
+        scanResult = result;
+        return result;
+    }
+
+    /**
+     * Connection Scan multiorigen: recorre las instancias por hora de salida desde que la orden está
+     * lista (creación + permanencia en almacén) y mantiene por hub y aeropuerto el minuto más temprano
+     * en que la carga puede volver a salir (llegada + transbordo). Termina cuando ninguna salida puede
+     * mejorar la llegada de algún hub o al agotar MAX_DAY_LOOKAHEAD días.
+     */
+    private ScanResult scan(Order order, int minCapacity) {
+        int target = network.indexOf(order.getDestinationCode());
+        int airportCount = network.airportCount();
+        int hubCount = PRODUCTION_HUBS.size();
+        int start = FlightTimetable.ceilEpochMinute(order.getCreationUtc().plus(Config.WAREHOUSE_DWELL));
+        int end = start + MAX_DAY_LOOKAHEAD * MINUTES_PER_DAY;
+        long startDay = Math.floorDiv(start, MINUTES_PER_DAY);
+        // Un día de margen a cada lado: las instancias se indexan por fecha local de salida
+        FlightTimetable instances = timetableFor(startDay - 1, startDay + MAX_DAY_LOOKAHEAD + 2);
+
+        int[] ready = new int[hubCount * airportCount];
+        int[] via = new int[hubCount * airportCount];
+        int[] hops = new int[hubCount * airportCount];
+        Arrays.fill(ready, Integer.MAX_VALUE);
+        Arrays.fill(via, -1);
+        int[] hubAirports = new int[hubCount];
+        int[] arrival = new int[hubCount];
+        Arrays.fill(arrival, Integer.MAX_VALUE);
+        for (int hub = 0; hub < hubCount; hub++) {
+            hubAirports[hub] = network.indexOf(PRODUCTION_HUBS.get(hub));
+            if (hubAirports[hub] == target) {
+                arrival[hub] = start;
+            } else if (hubAirports[hub] >= 0) {
+                ready[hub * airportCount + hubAirports[hub]] = start;
+            }
+        }
+
+        for (int pos = instances.firstConnectionAtOrAfter(start); pos < instances.connectionCount(); pos++) {
+            int instance = instances.connectionAt(pos);
+            int departure = instances.departureMinute(instance);
+            // Las llegadas son posteriores a la salida: desde aquí nada mejora a los hubs ya resueltos
+            if (departure >= end || departure >= latestArrival(arrival)) {
+                break;
+            }
+            if (instances.isCancelled(instance) || blockedInstances.get(instance)) {
+                continue;
+            }
+            Flight flight = instances.flight(instance);
+            int origin = network.originOf(flight);
+            int destination = network.destinationOf(flight);
+            int arrivalMinute = instances.arrivalMinute(instance);
+            boolean capacityChecked = false;
+            for (int hub = 0; hub < hubCount; hub++) {
+                int from = hub * airportCount + origin;
+                if (ready[from] > departure || hops[from] >= MAX_HOPS) {
+                    continue;
+                }
+                if (!capacityChecked) {
+                    if (flightSchedule.getRemainingCapacity(flight, instances.epochDay(instance)) < minCapacity) {
+                        break;
+                    }
+                    capacityChecked = true;
+                }
+                int to = hub * airportCount + destination;
+                if (destination == target) {
+                    if (arrivalMinute < arrival[hub]) {
+                        arrival[hub] = arrivalMinute;
+                        via[to] = instance;
+                    }
+                } else if (arrivalMinute + TRANSFER_MINUTES < ready[to]) {
+                    ready[to] = arrivalMinute + TRANSFER_MINUTES;
+                    via[to] = instance;
+                    hops[to] = hops[from] + 1;
+                }
+            }
+        }
+
+        int[][] paths = new int[hubCount][];
+        for (int hub = 0; hub < hubCount; hub++) {
+            if (arrival[hub] != Integer.MAX_VALUE) {
+                paths[hub] = unwind(instances, via, hub * airportCount, hubAirports[hub], target);
+                if (paths[hub] == null) {
+                    arrival[hub] = Integer.MAX_VALUE;
                 }
             }
         }
-        return distances;
+        return new ScanResult(instances, target, arrival, paths);
     }
 
-    private Map<String, List<String>> buildReverseGraph() {
-        Map<String, List<String>> reverse = new HashMap<>();
-        for (Flight flight : flights.getAll()) {
-            reverse.computeIfAbsent(flight.getDestinationCode(), key -> new ArrayList<>())
-                    .add(flight.getOriginCode());
+    private static int latestArrival(int[] arrival) {
+        int latest = Integer.MIN_VALUE;
+        for (int value : arrival) {
+            latest = Math.max(latest, value);
         }
-        return reverse;
+        return latest;
     }
 
-    private List<Flight> rankCandidates(List<Flight> options,
+    /**
+     * Reconstruye las instancias del hub al destino siguiendo las etiquetas de entrada; null si la cadena
+     * pasa de MAX_HOPS. Puede pasar: una escala que mejora después de que otras se etiquetaron desde ella
+     * deja una cadena más larga que el conteo de saltos con que se armaron.
+     */
+    private int[] unwind(FlightTimetable instances, int[] via, int offset, int hubAirport, int target) {
+        int[] reversed = new int[MAX_HOPS];
+        int count = 0;
+        int airport = target;
+        while (airport != hubAirport) {
+            if (count == MAX_HOPS) {
+                return null;
+            }
+            int instance = via[offset + airport];
+            reversed[count++] = instance;
+            airport = network.originOf(instances.flight(instance));
+        }
+        int[] path = new int[count];
+        for (int i = 0; i < count; i++) {
+            path[i] = reversed[count - 1 - i];
+        }
+        return path;
+    }
+
+    private FlightTimetable timetableFor(long fromDay, long toDay) {
+        if (timetable == null || !timetable.covers(fromDay, toDay)) {
+            timetable = world.getFlightTimetable(fromDay, toDay);
+        }
+        return timetable;
+    }
+
+    /**
+     * Devuelve la capacidad de las rutas de un plan que el llamador descarta (quedó infactible a medias).
+     */
+    void release(OrderPlan plan) {
+        for (Route route : plan.getRoutes()) {
+            for (RouteSegment segment : route.getSegments()) {
+                Flight flight = segment.getFlight();
+                int quantity = segment.getRouteQuantity();
+                long day = segment.getDate().toEpochDay();
+                flightSchedule.release(flight, day, quantity);
+                int destination = network.destinationOf(flight);
+                ReservationJournal.releaseStay(airportSchedule, network.code(destination), network.zoneOffset(destination),
+                        FlightTimetable.arrivalMinute(flight, day), segment.isFinalLeg(), quantity);
+            }
+        }
+        scanResult = null;
+    }
+
+    List<String> productionHubs() {
+        return Collections.unmodifiableList(PRODUCTION_HUBS);
+    }
+
+    private List<Flight> rankCandidates(Flight[] options,
                                         int currentDist,
-                                        String destination,
-                                        Map<String, Integer> distances,
-                                        Set<String> visited) {
+                                        int target,
+                                        int[] distances,
+                                        boolean[] visited) {
         if (mode == SelectionMode.RANDOM_APPROACH) {
             List<Flight> prioritized = new ArrayList<>();
             for (Flight option : options) {
-                double currentGeo = distanceToDestination(option.getOriginCode(), destination);
-                double nextGeo = distanceToDestination(option.getDestinationCode(), destination);
-                if (nextGeo < currentGeo || option.getDestinationCode().equals(destination)) {
+                double currentGeo = network.distanceKm(network.originOf(option), target);
+                double nextGeo = network.distanceKm(network.destinationOf(option), target);
+                if (nextGeo < currentGeo || network.destinationOf(option) == target) {
                     prioritized.add(option);
                 }
             }
 
             if (prioritized.isEmpty()) {
                 for (Flight option : options) {
-                    if (!visited.contains(option.getDestinationCode())) {
+                    if (!visited[network.destinationOf(option)]) {
                         prioritized.add(option);
                     }
                 }
             }
 
             if (prioritized.isEmpty()) {
-                prioritized.addAll(options);
+                prioritized.addAll(Arrays.asList(options));
             }
 
             Collections.shuffle(prioritized, rnd);
             return prioritized;
         }
 
-        List<Flight> prioritized = new ArrayList<>(options);
-        prioritized.removeIf(f -> visited.contains(f.getDestinationCode()));
-        if (prioritized.isEmpty()) prioritized.addAll(options);
-
-        prioritized.sort((a, b) -> Double.compare(
-                slackScore(a, destination, distances),
-                slackScore(b, destination, distances)));
-        return prioritized;
+        Flight[] ranked = new Flight[options.length];
+        double[] keys = new double[options.length];
+        int count = 0;
+        for (Flight option : options) {
+            if (!visited[network.destinationOf(option)]) {
+                ranked[count] = option;
+                keys[count++] = slackScore(network.destinationOf(option), target);
+            }
+        }
+        if (count == 0) {
+            for (Flight option : options) {
+                ranked[count] = option;
+                keys[count++] = slackScore(network.destinationOf(option), target);
+            }
+        }
+        sortByKey(ranked, keys, count);
+        return Arrays.asList(ranked).subList(0, count);
     }
 
-    private double slackScore(Flight flight,
-                              String destination,
-                              Map<String, Integer> distances) {
-        double geoDistance = distanceToDestination(flight.getDestinationCode(), destination);
-        int directBonus = flight.getDestinationCode().equals(destination) ? -10 : 0;
-        double continentPenalty = continentPenalty(flight.getDestinationCode(), destination);
+    private double slackScore(int airport, int target) {
+        double geoDistance = network.distanceKm(airport, target);
+        int directBonus = airport == target ? -10 : 0;
+        // penalización suave para preferir mismo continente
+        double continentPenalty = network.sameContinent(airport, target) ? 0 : 5_000;
         return geoDistance + continentPenalty + directBonus;
     }
 
-    private double continentPenalty(String airportCode, String destinationCode) {
-        Airport target = airports.get(destinationCode);
-        Airport candidate = airports.get(airportCode);
-        if (target == null || candidate == null) {
-            return 0;
+    /**
+     * Ordenamiento estable por clave precalculada (inserción: pocas decenas de vuelos por aeropuerto).
+     */
+    private static void sortByKey(Flight[] flights, double[] keys, int count) {
+        for (int i = 1; i < count; i++) {
+            Flight flight = flights[i];
+            double key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && Double.compare(keys[j], key) > 0) {
+                flights[j + 1] = flights[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            flights[j + 1] = flight;
+            keys[j + 1] = key;
         }
-        if (Objects.equals(target.getContinent(), candidate.getContinent())) {
-            return 0;
+    }
+
+    /**
+     * Prueba las plantillas de la franja de carga lista: sirve la primera que sale después de
+     * {@code readyMinute}, llega a más tardar en {@code dueMinute}, no pasa por salidas canceladas y
+     * donde la cantidad cabe entera en vuelos y almacenes; null si ninguna. Un camino que solo admite
+     * parte de la carga se deja a la exploración, que elige con la red tal como está.
+     */
+    private Route buildFromTemplates(Order order, int origin, int target, int readyMinute, int dueMinute, int quantity) {
+        List<long[]> candidates = templates.get(origin, target, readyMinute);
+        if (candidates.isEmpty()) {
+            return null;
         }
-        // penalización suave para preferir mismo continente
-        return 5_000;
+        Instant dueInstant = order.getCreationUtc().plus(network.sla(origin, target));
+        Flights flights = world.getFlights();
+        for (long[] template : candidates) {
+            FlightTimetable instances = timetableFor(PathTemplates.epochDay(template[0]),
+                    PathTemplates.epochDay(template[template.length - 1]) + 1);
+            int[] path = new int[template.length];
+            boolean fits = true;
+            for (int i = 0; i < template.length && fits; i++) {
+                Flight flight = flights.getByIndex(PathTemplates.flightIndex(template[i]));
+                long day = PathTemplates.epochDay(template[i]);
+                path[i] = instances.instance(flight, day);
+                fits = path[i] >= 0 && !instances.isCancelled(path[i])
+                        && flightSchedule.getRemainingCapacity(flight, day) >= quantity;
+            }
+            if (!fits || instances.departureMinute(path[0]) < readyMinute
+                    || instances.arrivalMinute(path[path.length - 1]) > dueMinute) {
+                continue;
+            }
+            Route route = new Route(quantity);
+            int mark = journal.begin();
+            boolean reserved = true;
+            for (int i = 0; i < path.length && reserved; i++) {
+                reserved = reserveSegment(route, instances, path[i], quantity, i == path.length - 1, dueInstant);
+            }
+            if (reserved) {
+                journal.commit(mark);
+                scanResult = null;
+                return route;
+            }
+            journal.rollback(mark);
+        }
+        return null;
     }
 
-    private boolean reserveSegment(Route route, Flight flight, LocalDate date, int quantity, boolean finalLeg, Instant dueInstant) {
-        if (!flightSchedule.tryReserve(flight, date, quantity)) {
-            return false;
+    /**
+     * Guarda como plantilla la secuencia de vuelos de una ruta que llegó a tiempo. Solo en modo
+     * heurístico: el aleatorio debe explorar caminos distintos y no depender de qué hilo llegó antes.
+     */
+    private void rememberTemplate(int origin, int target, int readyMinute, Route route) {
+        List<RouteSegment> segments = route.getSegments();
+        if (mode != SelectionMode.HEURISTIC_APPROACH || segments.isEmpty() || route.getSlack().isNegative()) {
+            return;
         }
+        long[] legs = new long[segments.size()];
+        for (int i = 0; i < legs.length; i++) {
+            RouteSegment segment = segments.get(i);
+            legs[i] = PathTemplates.leg(segment.getFlight().getIndex(), segment.getDate().toEpochDay());
+        }
+        templates.add(origin, target, readyMinute, legs);
+    }
 
-        Airport destinationAirport = airports.get(flight.getDestinationCode());
-        LocalDateTime arrivalLocal = toLocal(flight.getArrivalInstant(date), destinationAirport.getZoneOffset());
-        LocalDateTime departureLocal = arrivalLocal.plus(finalLeg ? Config.WAREHOUSE_DWELL : Config.TRANSFER_BUFFER);
+    /**
+     * Si, listo en {@code airport} al minuto dado, la cota inferior de viaje aún permite llegar al plazo.
+     */
+    private static boolean canArriveBy(int[] remainingMinutes, int airport, int readyMinute, int dueMinute) {
+        int remaining = remainingMinutes[airport];
+        return remaining != NetworkIndex.UNREACHABLE && (long) readyMinute + remaining <= dueMinute;
+    }
 
-        if (!airportSchedule.tryReserveTransit(destinationAirport.code, arrivalLocal, departureLocal, quantity)) {
-            flightSchedule.release(flight, date, quantity);
+    private boolean reserveSegment(Route route,
+                                   FlightTimetable instances,
+                                   int instance,
+                                   int quantity,
+                                   boolean finalLeg,
+                                   Instant dueInstant) {
+        Flight flight = instances.flight(instance);
+        long day = instances.epochDay(instance);
+        int mark = journal.begin();
+        if (!journal.tryReserveFlight(flight, day, quantity)) {
             return false;
         }
 
-        RouteSegment segment = new RouteSegment(flight, date, quantity, finalLeg);
+        int destination = network.destinationOf(flight);
+        int arrivalMinute = instances.arrivalMinute(instance);
+        if (!journal.tryReserveStay(network.code(destination), network.zoneOffset(destination), arrivalMinute, finalLeg, quantity)) {
+            journal.rollback(mark);
+            return false;
+        }
+
+        RouteSegment segment = new RouteSegment(flight, LocalDate.ofEpochDay(day), quantity, finalLeg);
         if (finalLeg) {
-            Instant arrivalInstant = flight.getArrivalInstant(date);
+            Instant arrivalInstant = FlightTimetable.toInstant(arrivalMinute);
             Duration slack = Duration.between(arrivalInstant, dueInstant);
             segment.setSlack(slack);
             route.setSlack(slack);
@@ -273,60 +936,69 @@ class RouteBuilder {
         return true;
     }
 
-    private void releaseAllocated(Route route) {
-        for (RouteSegment segment : route.getSegments()) {
-            Flight flight = segment.getFlight();
-            LocalDate date = segment.getDate();
-            int qty = segment.getRouteQuantity();
-            flightSchedule.release(flight, date, qty);
-
-            Airport destinationAirport = airports.get(flight.getDestinationCode());
-            LocalDateTime arrivalLocal = toLocal(flight.getArrivalInstant(date), destinationAirport.getZoneOffset());
-            LocalDateTime departureLocal = arrivalLocal.plus(segment.isFinalLeg() ? Config.WAREHOUSE_DWELL : Config.TRANSFER_BUFFER);
-            airportSchedule.releaseTransit(destinationAirport.code, arrivalLocal, departureLocal, qty);
-        }
+    /**
+     * Red resuelta: primer arco de vuelo (los siguientes van de a dos) y su instancia.
+     */
+    private record FlowNetwork(MinCostFlow flow, int firstArcEdge, int[] arcInstance, int sent) {
     }
 
-    private LocalDateTime toLocal(Instant instant, ZoneOffset offset) {
-        return LocalDateTime.ofInstant(instant, offset);
-    }
+    private static final class ScanResult {
+        private final FlightTimetable instances;
+        private final int target;
+        private final int[] arrival;
+        private final int[][] paths;
+
+        private ScanResult(FlightTimetable instances, int target, int[] arrival, int[][] paths) {
+            this.instances = instances;
+            this.target = target;
+            this.arrival = arrival;
+            this.paths = paths;
+        }
 
-    private double distanceToDestination(String airportCode, String destinationCode) {
-        Airport origin = airports.get(airportCode);
-        Airport destination = airports.get(destinationCode);
-        if (origin == null || destination == null) {
-            return Double.MAX_VALUE / 2;
+        private int[] path(int hub) {
+            return paths[hub];
         }
-        return haversineKm(origin.getLatitude(), origin.getLongitude(), destination.getLatitude(), destination.getLongitude());
-    }
 
-    private double haversineKm(double lat1, double lon1, double lat2, double lon2) {
-        double R = 6371.0;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
+        private boolean complete() {
+            for (int[] path : paths) {
+                if (path == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
 
-    private Duration slaFor(String originCode, String destinationCode) {
-        Airport origin = airports.get(originCode);
-        Airport destination = airports.get(destinationCode);
-        if (origin == null || destination == null) {
-            return Duration.ofHours(Config.INTERCONTINENTAL_SLA_HOURS);
+        /**
+         * Completa los hubs sin ruta con los del scan alternativo (mismo horizonte y estado).
+         */
+        private ScanResult fillFrom(ScanResult other) {
+            int[] mergedArrival = arrival.clone();
+            int[][] mergedPaths = paths.clone();
+            for (int hub = 0; hub < paths.length; hub++) {
+                if (paths[hub] == null) {
+                    mergedArrival[hub] = other.arrival[hub];
+                    mergedPaths[hub] = other.paths[hub];
+                }
+            }
+            return new ScanResult(instances, target, mergedArrival, mergedPaths);
         }
-        String originContinent = origin.getContinent();
-        String destinationContinent = destination.getContinent();
-        if (originContinent != null && originContinent.equalsIgnoreCase(destinationContinent)) {
-            return Duration.ofHours(Config.CONTINENTAL_SLA_HOURS);
+
+        /**
+         * Menor capacidad remanente en la ruta del hub.
+         */
+        private int bottleneck(int hub, FlightSchedule schedule) {
+            int bottleneck = Integer.MAX_VALUE;
+            for (int instance : paths[hub]) {
+                bottleneck = Math.min(bottleneck,
+                        schedule.getRemainingCapacity(instances.flight(instance), instances.epochDay(instance)));
+            }
+            return bottleneck;
         }
-        return Duration.ofHours(Config.INTERCONTINENTAL_SLA_HOURS);
     }
 
     enum SelectionMode {
         RANDOM_APPROACH,
-        HEURISTIC_APPROACH
+        HEURISTIC_APPROACH,
+        CONNECTION_SCAN
     }
 }
@@ -0,0 +1,15 @@
+package com.morapack.skyroute.algorithm;
+
+/**
+ * Motivo por el que terminó la última corrida de un optimizador.
+ */
+public enum StopReason {
+    // Se completaron las generaciones pedidas
+    GENERATION_LIMIT,
+    // Se agotó el presupuesto de tiempo
+    TIME_BUDGET,
+    // La mejora quedó bajo el umbral durante la ventana configurada
+    STAGNATION,
+    // El llamador pidió detener (p. ej. llegó la siguiente ventana de pedidos)
+    INTERRUPTED
+}
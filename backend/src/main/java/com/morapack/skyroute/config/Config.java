@@ -24,4 +24,41 @@ public class Config {
     public static final int OPERATION_MAX_GEN = 30;
     public static final double P_CROSS = 0.5;
     public static final double P_MUT = 0.7; // ligera alza para romper estancamiento
+    // Ajustar P_CROSS y P_MUT según la mejora por evaluación de cada operador
+    public static final boolean GA_ADAPTIVE_OPERATORS = true;
+    // Cortar la corrida si el mejor fitness no mejora al menos este factor relativo dentro de la ventana
+    public static final long GA_STAGNATION_WINDOW_MS = 15_000;
+    public static final double GA_MIN_RELATIVE_IMPROVEMENT = 1e-4;
+    // Hilos para generar la descendencia en paralelo (1 = secuencial)
+    public static final int GA_WORKERS = Runtime.getRuntime().availableProcessors();
+    // Seguir evolucionando la última población mientras la simulación espera el siguiente slot
+    public static final boolean SIM_ANYTIME_OPTIMIZATION = true;
+    public static final long SIM_ANYTIME_MIN_IDLE_MS = 1_000;
+    // ALNS: órdenes quitadas por iteración (fracción de la demanda, con tope) y k del regret
+    public static final double ALNS_DESTROY_FRACTION = 0.1;
+    public static final int ALNS_MAX_DESTROY = 12;
+    public static final int ALNS_REGRET_K = 3;
+    // k del regret al insertar en lote las órdenes nuevas de cada ventana (1 = orden de llegada)
+    public static final int BATCH_INSERTION_REGRET_K = 2;
+    // Descomponer la demanda en grupos con vuelos candidatos en común, cada uno con su GA en paralelo
+    public static final int DECOMPOSITION_MIN_ORDERS = 150;
+    public static final int DECOMPOSITION_MAX_CLUSTERS = Math.max(2, GA_WORKERS / 2);
+    // Al insertar, órdenes desde esta cantidad (la menor capacidad de vuelo) se reparten con flujo de costo mínimo (0 = nunca)
+    public static final int FLOW_SPLIT_MIN_QUANTITY = 300;
+    // Búsqueda local sobre el mejor individuo: presupuesto propio (descontado del GA) y órdenes tardías por ronda
+    public static final long LOCAL_SEARCH_BUDGET_MS = 500;
+    public static final int LOCAL_SEARCH_BATCH = 16;
+    // Modelo de islas: subpoblaciones independientes con migración periódica (1 = GA simple)
+    public static final int ISLAND_COUNT = 4;
+    public static final int ISLAND_MIGRATION_INTERVAL = 5;
+    public static final int ISLAND_MIGRANTS = 2;
+    // Capacidad de vuelos en tabla densa por índice de vuelo y día (false = HAMT por clave)
+    public static final boolean DENSE_FLIGHT_SCHEDULE = true;
+    // Días de instancias de vuelo materializadas por delante del día consultado
+    public static final int TIMETABLE_HORIZON_DAYS = 21;
+    // Caché de caminos a tiempo por hub, destino y franja de la hora de carga lista
+    public static final int PATH_TEMPLATE_BUCKET_MINUTES = 240;
+    public static final int PATH_TEMPLATES_PER_KEY = 4;
+    // Incluir en la población inicial el individuo determinista de llegada más temprana (Connection Scan)
+    public static final boolean CONNECTION_SCAN_SEED = true;
 }
@@ -22,6 +22,8 @@ public class World implements Orders.Observer {
     private final Flights flights;
     private final Orders orders;
     private final AirportSchedule airportSchedule;
+    private volatile NetworkIndex networkIndex;
+    private volatile FlightTimetable flightTimetable;
     private Instant currentInstant = Instant.EPOCH;
 
     public static synchronized World getInstance() {
@@ -76,8 +78,47 @@ public class World implements Orders.Observer {
         return airportSchedule;
     }
 
-    public Instant getCurrentInstant() {
-        return currentInstant;
+    /**
+     * Índice inmutable de la red, construido la primera vez que se pide; aeropuertos y vuelos no
+     * cambian durante la vida del World.
+     */
+    public NetworkIndex getNetworkIndex() {
+        NetworkIndex index = networkIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = networkIndex;
+                if (index == null) {
+                    index = NetworkIndex.build(airports, flights);
+                    networkIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Instancias de vuelo que cubren los días [fromDay, toDay) (epoch day local de salida). Si la consulta
+     * cae fuera del horizonte actual se reconstruye ampliándolo {@link Config#TIMETABLE_HORIZON_DAYS} días.
+     */
+    public FlightTimetable getFlightTimetable(long fromDay, long toDay) {
+        FlightTimetable timetable = flightTimetable;
+        if (timetable != null && timetable.covers(fromDay, toDay)) {
+            return timetable;
+        }
+        synchronized (this) {
+            timetable = flightTimetable;
+            if (timetable == null || !timetable.covers(fromDay, toDay)) {
+                long first = fromDay - 1;
+                long end = toDay + Config.TIMETABLE_HORIZON_DAYS;
+                if (timetable != null) {
+                    first = Math.min(first, timetable.getFirstDay());
+                    end = Math.max(end, timetable.getEndDay());
+                }
+                timetable = FlightTimetable.build(flights, first, end);
+                flightTimetable = timetable;
+            }
+        }
+        return timetable;
     }
 
     @Override
@@ -0,0 +1,179 @@
+package com.morapack.skyroute.io;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.morapack.skyroute.models.*;
+
+/**
+ * Grafo expandido en el tiempo: una instancia por vuelo y fecha local de salida dentro del horizonte
+ * [firstDay, endDay), con salida y llegada UTC en minutos epoch y la marca de cancelación ya
+ * resueltas. La instancia de un vuelo en un día se obtiene por aritmética, así la siguiente salida de
+ * un vuelo tras la hora de carga lista no necesita búsqueda; ninguna consulta asigna memoria. Todas las
+ * instancias ordenadas por salida forman el arreglo de conexiones del Connection Scan, donde la primera
+ * salida tras un minuto se busca por búsqueda binaria.
+ */
+public final class FlightTimetable {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final long firstDay;
+    private final int days;
+    private final Flight[] flights;
+    private final int[] departure;
+    private final int[] arrival;
+    private final boolean[] cancelled;
+    private final int[] connections;
+    private final int[] connectionMinutes;
+
+    private FlightTimetable(Flights flightsIndex, long firstDay, long endDay) {
+        if (endDay <= firstDay) {
+            throw new IllegalArgumentException("Empty timetable horizon");
+        }
+        this.firstDay = firstDay;
+        this.days = Math.toIntExact(endDay - firstDay);
+        List<Flight> all = flightsIndex.getAll();
+        this.flights = all.toArray(new Flight[0]);
+        int instances = Math.multiplyExact(flights.length, days);
+        this.departure = new int[instances];
+        this.arrival = new int[instances];
+        this.cancelled = new boolean[instances];
+
+        for (Flight flight : flights) {
+            int base = flight.getIndex() * days;
+            int offsetMinutes = flight.getOrigin().getZoneOffset().getTotalSeconds() / 60;
+            int departureOfDay = flight.getDepLocal().toSecondOfDay() / 60;
+            int duration = Math.toIntExact(flight.getFlightDuration().toMinutes());
+            boolean hasCancellations = !flight.getCancelledDates().isEmpty();
+            for (int offset = 0; offset < days; offset++) {
+                long day = firstDay + offset;
+                int dep = Math.toIntExact(day * MINUTES_PER_DAY + departureOfDay - offsetMinutes);
+                departure[base + offset] = dep;
+                arrival[base + offset] = dep + duration;
+                cancelled[base + offset] = hasCancellations && flight.isCancelled(LocalDate.ofEpochDay(day));
+            }
+        }
+
+        long[] keys = new long[instances];
+        for (int instance = 0; instance < instances; instance++) {
+            keys[instance] = ((long) departure[instance] << 32) | instance;
+        }
+        Arrays.sort(keys);
+        this.connections = new int[instances];
+        this.connectionMinutes = new int[instances];
+        for (int i = 0; i < instances; i++) {
+            connections[i] = (int) keys[i];
+            connectionMinutes[i] = (int) (keys[i] >> 32);
+        }
+    }
+
+    public static FlightTimetable build(Flights flights, long firstDay, long endDay) {
+        return new FlightTimetable(Objects.requireNonNull(flights, "flights"), firstDay, endDay);
+    }
+
+    public static int toEpochMinute(Instant instant) {
+        return Math.toIntExact(Math.floorDiv(instant.getEpochSecond(), 60L));
+    }
+
+    /**
+     * Llegada UTC en minutos epoch del vuelo que sale el día local dado, con la misma aritmética que las
+     * instancias de la tabla; no asigna memoria ni revisa cancelaciones.
+     */
+    public static int arrivalMinute(Flight flight, long epochDay) {
+        int offsetMinutes = flight.getOrigin().getZoneOffset().getTotalSeconds() / 60;
+        int departureOfDay = flight.getDepLocal().toSecondOfDay() / 60;
+        long departure = epochDay * MINUTES_PER_DAY + departureOfDay - offsetMinutes;
+        return Math.toIntExact(departure + flight.getFlightDuration().toMinutes());
+    }
+
+    /**
+     * Primer minuto epoch no anterior al instante.
+     */
+    public static int ceilEpochMinute(Instant instant) {
+        int floor = toEpochMinute(instant);
+        boolean exact = instant.getEpochSecond() % 60 == 0 && instant.getNano() == 0;
+        return exact ? floor : floor + 1;
+    }
+
+    public static Instant toInstant(int epochMinute) {
+        return Instant.ofEpochSecond(epochMinute * 60L);
+    }
+
+    public long getFirstDay() {
+        return firstDay;
+    }
+
+    public long getEndDay() {
+        return firstDay + days;
+    }
+
+    public boolean covers(long fromDay, long toDay) {
+        return fromDay >= firstDay && toDay <= firstDay + days;
+    }
+
+    /**
+     * Instancia del vuelo en la fecha local de salida (epoch day) o -1 si cae fuera del horizonte.
+     */
+    public int instance(Flight flight, long epochDay) {
+        long offset = epochDay - firstDay;
+        if (offset < 0 || offset >= days) {
+            return -1;
+        }
+        return flight.getIndex() * days + (int) offset;
+    }
+
+    public Flight flight(int instance) {
+        return flights[instance / days];
+    }
+
+    public long epochDay(int instance) {
+        return firstDay + instance % days;
+    }
+
+    public int departureMinute(int instance) {
+        return departure[instance];
+    }
+
+    public int arrivalMinute(int instance) {
+        return arrival[instance];
+    }
+
+    public boolean isCancelled(int instance) {
+        return cancelled[instance];
+    }
+
+    public int connectionCount() {
+        return connections.length;
+    }
+
+    /**
+     * Instancia en la posición dada de todas las salidas del horizonte, ordenadas por hora de salida.
+     */
+    public int connectionAt(int position) {
+        return connections[position];
+    }
+
+    /**
+     * Posición de la primera conexión que sale en o después del minuto dado
+     * ({@link #connectionCount()} si no hay ninguna).
+     */
+    public int firstConnectionAtOrAfter(int epochMinute) {
+        return lowerBound(connectionMinutes, epochMinute);
+    }
+
+    private static int lowerBound(int[] minutes, int epochMinute) {
+        int lo = 0;
+        int hi = minutes.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (minutes[mid] < epochMinute) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.morapack.skyroute.config.Config;
 import com.morapack.skyroute.models.*;
 
 public class Flights {
@@ -20,7 +21,9 @@ public class Flights {
     private final List<Flight> all = new ArrayList<>();
     private final Map<Airport, List<Flight>> byOrigin = new HashMap<>();
     private final Map<String, Flight> byId = new HashMap<>();
-    private final FlightSchedule schedule = new FlightSchedule();
+    private final FlightSchedule schedule = Config.DENSE_FLIGHT_SCHEDULE
+            ? FlightSchedule.dense()
+            : new FlightSchedule();
 
     private Flights(Airports airports) {
         if (airports == null) {
@@ -56,6 +59,10 @@ public class Flights {
         return byId.get(flightId);
     }
 
+    public Flight getByIndex(int index) {
+        return all.get(index);
+    }
+
     public FlightSchedule getSchedule() {
         return schedule;
     }
@@ -135,6 +142,7 @@ public class Flights {
     }
 
     private void register(Flight flight) {
+        flight.setIndex(all.size());
         all.add(flight);
         byOrigin.computeIfAbsent(flight.getOrigin(), key -> new ArrayList<>()).add(flight);
         byId.put(flight.getId(), flight);
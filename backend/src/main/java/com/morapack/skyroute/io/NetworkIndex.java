@@ -0,0 +1,288 @@
+package com.morapack.skyroute.io;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.morapack.skyroute.config.Config;
+import com.morapack.skyroute.models.*;
+
+/**
+ * Índice inmutable de la red (aeropuertos internados a enteros, vuelos salientes, adyacencia inversa
+ * distancias en saltos y cota inferior de minutos de viaje hacia cada destino) más las tablas por par
+ * de aeropuertos: distancia geodésica, mismo continente y SLA. Se construye una vez por World y lo comparten todos los
+ * RouteBuilder, en lugar de rehacer el grafo, los BFS y la trigonometría en cada operador del GA.
+ */
+public final class NetworkIndex {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    public static final double UNKNOWN_DISTANCE = Double.MAX_VALUE / 2;
+    private static final Duration CONTINENTAL_SLA = Duration.ofHours(Config.CONTINENTAL_SLA_HOURS);
+    private static final Duration INTERCONTINENTAL_SLA = Duration.ofHours(Config.INTERCONTINENTAL_SLA_HOURS);
+
+    private final String[] codes;
+    private final Airport[] airports;
+    private final ZoneOffset[] offsets;
+    private final Map<String, Integer> indexByCode;
+    private final Flight[][] outbound;
+    private final int[][] inboundOrigins;
+    private final int[][] hopsTo;
+    private final int[][] minMinutesTo;
+    private final int[] flightOrigin;
+    private final int[] flightDestination;
+    private final double[][] distanceKm;
+    private final boolean[][] sameContinent;
+    private final Duration[][] sla;
+
+    private NetworkIndex(Airports airportsIndex, Flights flights) {
+        List<String> sortedCodes = new ArrayList<>(airportsIndex.asMap().keySet());
+        Collections.sort(sortedCodes);
+        int count = sortedCodes.size();
+        this.codes = sortedCodes.toArray(new String[0]);
+        this.airports = new Airport[count];
+        this.offsets = new ZoneOffset[count];
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            airports[i] = airportsIndex.get(codes[i]);
+            offsets[i] = airports[i].getZoneOffset();
+            indexes.put(codes[i], i);
+        }
+        this.indexByCode = Collections.unmodifiableMap(indexes);
+
+        // Vuelos salientes en el mismo orden que Flights.getByOrigin
+        this.outbound = new Flight[count][];
+        for (int i = 0; i < count; i++) {
+            outbound[i] = flights.getByOrigin(airports[i]).toArray(new Flight[0]);
+        }
+
+        List<Flight> all = flights.getAll();
+        this.flightOrigin = new int[all.size()];
+        this.flightDestination = new int[all.size()];
+        List<List<Integer>> reverse = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            reverse.add(new ArrayList<>());
+        }
+        for (Flight flight : all) {
+            int origin = indexOf(flight.getOriginCode());
+            int destination = indexOf(flight.getDestinationCode());
+            flightOrigin[flight.getIndex()] = origin;
+            flightDestination[flight.getIndex()] = destination;
+            if (origin >= 0 && destination >= 0) {
+                reverse.get(destination).add(origin);
+            }
+        }
+        this.inboundOrigins = new int[count][];
+        for (int i = 0; i < count; i++) {
+            inboundOrigins[i] = reverse.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        this.hopsTo = new int[count][];
+        for (int destination = 0; destination < count; destination++) {
+            hopsTo[destination] = bfsFrom(destination);
+        }
+
+        // Tramo más corto por par de aeropuertos (duración del vuelo, sin esperas)
+        int[][] shortestLeg = new int[count][count];
+        for (int[] row : shortestLeg) {
+            Arrays.fill(row, UNREACHABLE);
+        }
+        for (Flight flight : all) {
+            int origin = flightOrigin[flight.getIndex()];
+            int destination = flightDestination[flight.getIndex()];
+            if (origin >= 0 && destination >= 0) {
+                int minutes = Math.toIntExact(flight.getFlightDuration().toMinutes());
+                shortestLeg[origin][destination] = Math.min(shortestLeg[origin][destination], minutes);
+            }
+        }
+        int transferMinutes = Math.toIntExact(Config.TRANSFER_BUFFER.toMinutes());
+        this.minMinutesTo = new int[count][];
+        for (int destination = 0; destination < count; destination++) {
+            minMinutesTo[destination] = shortestTravel(destination, shortestLeg, transferMinutes);
+        }
+
+        this.distanceKm = new double[count][count];
+        this.sameContinent = new boolean[count][count];
+        this.sla = new Duration[count][count];
+        for (int from = 0; from < count; from++) {
+            for (int to = 0; to < count; to++) {
+                Airport origin = airports[from];
+                Airport destination = airports[to];
+                distanceKm[from][to] = haversineKm(origin, destination);
+                sameContinent[from][to] = Objects.equals(origin.getContinent(), destination.getContinent());
+                String originContinent = origin.getContinent();
+                sla[from][to] = originContinent != null && originContinent.equalsIgnoreCase(destination.getContinent())
+                        ? CONTINENTAL_SLA
+                        : INTERCONTINENTAL_SLA;
+            }
+        }
+    }
+
+    public static NetworkIndex build(Airports airports, Flights flights) {
+        return new NetworkIndex(Objects.requireNonNull(airports, "airports"), Objects.requireNonNull(flights, "flights"));
+    }
+
+    public int airportCount() {
+        return codes.length;
+    }
+
+    /**
+     * Índice del aeropuerto o -1 si no está en la red.
+     */
+    public int indexOf(String code) {
+        Integer index = code == null ? null : indexByCode.get(code);
+        return index == null ? -1 : index;
+    }
+
+    public String code(int airport) {
+        return codes[airport];
+    }
+
+    public Airport airport(int airport) {
+        return airports[airport];
+    }
+
+    public ZoneOffset zoneOffset(int airport) {
+        return offsets[airport];
+    }
+
+    /**
+     * Vuelos que salen del aeropuerto; el arreglo es compartido y no debe modificarse.
+     */
+    public Flight[] outbound(int airport) {
+        return outbound[airport];
+    }
+
+    /**
+     * Orígenes de los vuelos que llegan al aeropuerto (con repetición, uno por vuelo).
+     */
+    public int[] inboundOrigins(int airport) {
+        return inboundOrigins[airport];
+    }
+
+    /**
+     * Saltos mínimos de cada aeropuerto hasta el destino; {@link #UNREACHABLE} si no hay camino.
+     * El arreglo es compartido y no debe modificarse.
+     */
+    public int[] hopsTo(int destination) {
+        return hopsTo[destination];
+    }
+
+    /**
+     * Cota inferior, en minutos, entre la salida desde cada aeropuerto y la llegada al destino: la suma
+     * de los tramos más cortos más el transbordo de cada escala. {@link #UNREACHABLE} si no hay camino;
+     * 0 en el propio destino. El arreglo es compartido y no debe modificarse.
+     */
+    public int[] minMinutesTo(int destination) {
+        return minMinutesTo[destination];
+    }
+
+    public int originOf(Flight flight) {
+        return flightOrigin[flight.getIndex()];
+    }
+
+    public int destinationOf(Flight flight) {
+        return flightDestination[flight.getIndex()];
+    }
+
+    /**
+     * Distancia geodésica en km; {@link #UNKNOWN_DISTANCE} si falta algún aeropuerto o coordenada.
+     */
+    public double distanceKm(int from, int to) {
+        if (from < 0 || to < 0) {
+            return UNKNOWN_DISTANCE;
+        }
+        return distanceKm[from][to];
+    }
+
+    public boolean sameContinent(int first, int second) {
+        return sameContinent[first][second];
+    }
+
+    /**
+     * Plazo comprometido entre origen y destino: continental si comparten continente, si no intercontinental.
+     */
+    public Duration sla(int origin, int destination) {
+        if (origin < 0 || destination < 0) {
+            return INTERCONTINENTAL_SLA;
+        }
+        return sla[origin][destination];
+    }
+
+    public Duration sla(String originCode, String destinationCode) {
+        return sla(indexOf(originCode), indexOf(destinationCode));
+    }
+
+    private static double haversineKm(Airport origin, Airport destination) {
+        if (origin.getLatitude() == null || origin.getLongitude() == null
+                || destination.getLatitude() == null || destination.getLongitude() == null) {
+            return UNKNOWN_DISTANCE;
+        }
+        double R = 6371.0;
+        double lat1 = origin.getLatitude();
+        double lat2 = destination.getLatitude();
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(destination.getLongitude() - origin.getLongitude());
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return R * c;
+    }
+
+    /**
+     * Dijkstra hacia atrás sobre la matriz de tramos más cortos (la red es chica, O(n²) basta).
+     */
+    private static int[] shortestTravel(int destination, int[][] shortestLeg, int transferMinutes) {
+        int count = shortestLeg.length;
+        int[] minutes = new int[count];
+        Arrays.fill(minutes, UNREACHABLE);
+        minutes[destination] = 0;
+        boolean[] settled = new boolean[count];
+        for (int step = 0; step < count; step++) {
+            int current = -1;
+            for (int airport = 0; airport < count; airport++) {
+                if (!settled[airport] && minutes[airport] != UNREACHABLE
+                        && (current < 0 || minutes[airport] < minutes[current])) {
+                    current = airport;
+                }
+            }
+            if (current < 0) {
+                break;
+            }
+            settled[current] = true;
+            // Llegar a una escala obliga a esperar el transbordo; al destino no
+            int onward = current == destination ? 0 : minutes[current] + transferMinutes;
+            for (int origin = 0; origin < count; origin++) {
+                int leg = shortestLeg[origin][current];
+                if (!settled[origin] && leg != UNREACHABLE && leg + onward < minutes[origin]) {
+                    minutes[origin] = leg + onward;
+                }
+            }
+        }
+        return minutes;
+    }
+
+    private int[] bfsFrom(int destination) {
+        int[] distances = new int[codes.length];
+        Arrays.fill(distances, UNREACHABLE);
+        distances[destination] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(destination);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int origin : inboundOrigins[current]) {
+                if (distances[origin] == UNREACHABLE) {
+                    distances[origin] = distances[current] + 1;
+                    queue.add(origin);
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,62 @@
+package com.morapack.skyroute.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.morapack.skyroute.config.Config;
+
+/**
+ * Caché de caminos que ya llegaron a tiempo, por (hub, destino, franja de la hora de carga lista).
+ * Cada plantilla es la secuencia de instancias de vuelo (índice del vuelo y día local de salida, en un
+ * long); las órdenes de la misma franja suelen caber en el mismo camino, así que el RouteBuilder
+ * heurístico las prueba antes de explorar y solo revisa capacidad, cancelación y plazo. Guarda pocas
+ * plantillas por clave, la más reciente primero. Vive lo que vive su RouteBuilder: no se comparte entre
+ * hilos ni entre corridas, así el camino elegido depende solo de las órdenes ya construidas y de la semilla.
+ */
+public final class PathTemplates {
+    private record Key(int hub, int destination, long bucket) {
+    }
+
+    private final Map<Key, List<long[]>> templates = new HashMap<>();
+
+    public static long leg(int flightIndex, long epochDay) {
+        return ((long) flightIndex << 32) | (epochDay & 0xFFFFFFFFL);
+    }
+
+    public static int flightIndex(long leg) {
+        return (int) (leg >>> 32);
+    }
+
+    public static long epochDay(long leg) {
+        return (int) leg;
+    }
+
+    /**
+     * Plantillas de la franja de {@code readyMinute}; lista vacía si no hay. No debe modificarse.
+     */
+    public List<long[]> get(int hub, int destination, int readyMinute) {
+        return templates.getOrDefault(key(hub, destination, readyMinute), List.of());
+    }
+
+    public void add(int hub, int destination, int readyMinute, long[] legs) {
+        templates.compute(key(hub, destination, readyMinute), (key, current) -> {
+            List<long[]> updated = new ArrayList<>(Config.PATH_TEMPLATES_PER_KEY);
+            updated.add(legs);
+            if (current != null) {
+                for (long[] template : current) {
+                    if (updated.size() < Config.PATH_TEMPLATES_PER_KEY && !Arrays.equals(template, legs)) {
+                        updated.add(template);
+                    }
+                }
+            }
+            return List.copyOf(updated);
+        });
+    }
+
+    private static Key key(int hub, int destination, int readyMinute) {
+        return new Key(hub, destination, Math.floorDiv(readyMinute, Config.PATH_TEMPLATE_BUCKET_MINUTES));
+    }
+}
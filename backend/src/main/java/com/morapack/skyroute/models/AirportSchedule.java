@@ -3,15 +3,23 @@ package com.morapack.skyroute.models;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
 
+/**
+ * Ocupación de almacenes por aeropuerto. Cada aeropuerto tiene su propio registro: los deltas por
+ * instante y un {@link OccupancyTimeline} (granularidad de minuto) que responde máximos en ventana y
+ * ocupación puntual en O(log n) sin recorrer los demás aeropuertos.
+ * copy() comparte los registros y cada copia clona solo los aeropuertos que modifica.
+ */
 public class AirportSchedule {
     private final Map<String, Integer> capacityByAirport;
-    private NavigableMap<Key, Integer> transitDeltas = new TreeMap<>();
-    private NavigableMap<Key, Integer> finalDeltas = new TreeMap<>();
+    private Map<String, Ledger> ledgers = new HashMap<>();
+    private Set<String> ownedLedgers = new HashSet<>();
     private boolean shared = false;
 
     public AirportSchedule(Map<String, Airport> airports) {
@@ -22,22 +30,10 @@ public class AirportSchedule {
         this.capacityByAirport = Collections.unmodifiableMap(capacities);
     }
 
-    private AirportSchedule(Map<String, Integer> capacities,
-                             NavigableMap<Key, Integer> transit,
-                             NavigableMap<Key, Integer> finals,
-                             boolean shared) {
+    private AirportSchedule(Map<String, Integer> capacities, Map<String, Ledger> ledgers) {
         this.capacityByAirport = capacities;
-        this.transitDeltas = transit;
-        this.finalDeltas = finals;
-        this.shared = shared;
-    }
-
-    private void ensureMutable() {
-        if (shared) {
-            transitDeltas = new TreeMap<>(transitDeltas);
-            finalDeltas = new TreeMap<>(finalDeltas);
-            shared = false;
-        }
+        this.ledgers = ledgers;
+        this.shared = true;
     }
 
     public synchronized boolean tryReserveTransit(String airportId, LocalDateTime start, LocalDateTime end, int qty) {
@@ -46,16 +42,16 @@ public class AirportSchedule {
         Objects.requireNonNull(start, "start");
         Objects.requireNonNull(end, "end");
 
-        ensureMutable();
-        mergeDelta(transitDeltas, new Key(start, airportId), qty);
-        mergeDelta(transitDeltas, new Key(end, airportId), -qty);
-        if (violatesCapacity()) {
-            mergeDelta(transitDeltas, new Key(start, airportId), -qty);
-            mergeDelta(transitDeltas, new Key(end, airportId), +qty);
-            cleanup(transitDeltas);
+        long from = OccupancyTimeline.minuteOf(start);
+        long to = OccupancyTimeline.minuteOf(end);
+        OccupancyTimeline updated = timeline(airportId).addFrom(from, qty).addFrom(to, -qty);
+        if (from < to && updated.maxOver(from, to) > capacityOf(airportId)) {
             return false;
         }
-        cleanup(transitDeltas);
+        Ledger ledger = writableLedger(airportId);
+        ledger.merge(start, qty);
+        ledger.merge(end, -qty);
+        ledger.timeline = updated;
         return true;
     }
 
@@ -64,49 +60,38 @@ public class AirportSchedule {
         Objects.requireNonNull(airportId, "airportId");
         Objects.requireNonNull(start, "start");
 
-        ensureMutable();
-        mergeDelta(finalDeltas, new Key(start, airportId), qty);
-        if (violatesCapacity()) {
-            mergeDelta(finalDeltas, new Key(start, airportId), -qty);
-            cleanup(finalDeltas);
+        long from = OccupancyTimeline.minuteOf(start);
+        OccupancyTimeline updated = timeline(airportId).addFrom(from, qty);
+        if (updated.maxOver(from, Long.MAX_VALUE) > capacityOf(airportId)) {
             return false;
         }
-        cleanup(finalDeltas);
+        Ledger ledger = writableLedger(airportId);
+        ledger.merge(start, qty);
+        ledger.timeline = updated;
         return true;
     }
 
     public synchronized void releaseTransit(String airportId, LocalDateTime start, LocalDateTime end, int qty) {
         if (qty <= 0) return;
-        ensureMutable();
-        mergeDelta(transitDeltas, new Key(start, airportId), -qty);
-        mergeDelta(transitDeltas, new Key(end, airportId), +qty);
-        cleanup(transitDeltas);
+        Ledger ledger = writableLedger(airportId);
+        ledger.merge(start, -qty);
+        ledger.merge(end, +qty);
+        ledger.timeline = ledger.timeline
+                .addFrom(OccupancyTimeline.minuteOf(start), -qty)
+                .addFrom(OccupancyTimeline.minuteOf(end), qty);
     }
 
     public synchronized void releaseFinal(String airportId, LocalDateTime start, int qty) {
         if (qty <= 0) return;
-        ensureMutable();
-        mergeDelta(finalDeltas, new Key(start, airportId), -qty);
-        cleanup(finalDeltas);
+        Ledger ledger = writableLedger(airportId);
+        ledger.merge(start, -qty);
+        ledger.timeline = ledger.timeline.addFrom(OccupancyTimeline.minuteOf(start), -qty);
     }
 
     public synchronized int getOccupied(String airportId, LocalDateTime instant) {
         Objects.requireNonNull(airportId, "airportId");
         Objects.requireNonNull(instant, "instant");
-        int occ = 0;
-        for (var entry : transitDeltas.entrySet()) {
-            if (entry.getKey().airportId.equals(airportId)
-                    && !entry.getKey().instant.isAfter(instant)) {
-                occ += entry.getValue();
-            }
-        }
-        for (var entry : finalDeltas.entrySet()) {
-            if (entry.getKey().airportId.equals(airportId)
-                    && !entry.getKey().instant.isAfter(instant)) {
-                occ += entry.getValue();
-            }
-        }
-        return Math.max(0, occ);
+        return Math.max(0, occupiedAt(ledgers.get(airportId), instant));
     }
 
     public synchronized int getAvailable(String airportId, LocalDateTime instant) {
@@ -115,91 +100,150 @@ public class AirportSchedule {
         return capacity - getOccupied(airportId, instant);
     }
 
+    /**
+     * Ocupación máxima del aeropuerto en [from, to), por minuto.
+     */
+    public synchronized int getPeakOccupied(String airportId, LocalDateTime from, LocalDateTime to) {
+        Objects.requireNonNull(airportId, "airportId");
+        long start = OccupancyTimeline.minuteOf(from);
+        long end = OccupancyTimeline.minuteOf(to);
+        if (start >= end) {
+            return getOccupied(airportId, from);
+        }
+        return Math.max(0, timeline(airportId).maxOver(start, end));
+    }
+
+    /**
+     * Curva escalonada de ocupación en [from, to]: el valor en {@code from} y cada cambio posterior.
+     */
+    public synchronized NavigableMap<LocalDateTime, Integer> getOccupancyCurve(String airportId,
+                                                                            LocalDateTime from,
+                                                                            LocalDateTime to) {
+        Objects.requireNonNull(airportId, "airportId");
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        Ledger ledger = ledgers.get(airportId);
+        NavigableMap<LocalDateTime, Integer> curve = new TreeMap<>();
+        int occupied = occupiedAt(ledger, from);
+        curve.put(from, Math.max(0, occupied));
+        if (ledger != null && to.isAfter(from)) {
+            for (var entry : ledger.deltas.subMap(from, false, to, true).entrySet()) {
+                occupied += entry.getValue();
+                curve.put(entry.getKey(), Math.max(0, occupied));
+            }
+        }
+        return Collections.unmodifiableNavigableMap(curve);
+    }
+
+    /**
+     * Curvas de ocupación de todos los aeropuertos conocidos en [from, to].
+     */
+    public synchronized Map<String, NavigableMap<LocalDateTime, Integer>> getOccupancyCurves(LocalDateTime from,
+                                                                                         LocalDateTime to) {
+        Set<String> airportIds = new HashSet<>(capacityByAirport.keySet());
+        airportIds.addAll(ledgers.keySet());
+        Map<String, NavigableMap<LocalDateTime, Integer>> curves = new HashMap<>();
+        for (String airportId : airportIds) {
+            curves.put(airportId, getOccupancyCurve(airportId, from, to));
+        }
+        return Collections.unmodifiableMap(curves);
+    }
+
     public synchronized void cleanupUntil(String airportId, LocalDateTime instant) {
         Objects.requireNonNull(airportId, "airportId");
         Objects.requireNonNull(instant, "instant");
-        ensureMutable();
-        cleanupMapUntil(transitDeltas, airportId, instant);
-        cleanupMapUntil(finalDeltas, airportId, instant);
+        Ledger ledger = ledgers.get(airportId);
+        if (ledger == null || !ledger.deltas.headMap(instant, false).containsValue(0)) {
+            return;
+        }
+        writableLedger(airportId).deltas.headMap(instant, false).values().removeIf(value -> value == 0);
     }
 
     public synchronized void purgeBefore(LocalDateTime instant) {
         Objects.requireNonNull(instant, "instant");
-        ensureMutable();
-        transitDeltas.keySet().removeIf(key -> key.instant.isBefore(instant));
-        finalDeltas.keySet().removeIf(key -> key.instant.isBefore(instant));
+        for (String airportId : new HashSet<>(ledgers.keySet())) {
+            Ledger ledger = ledgers.get(airportId);
+            if (ledger.deltas.isEmpty() || !ledger.deltas.firstKey().isBefore(instant)) {
+                continue;
+            }
+            Ledger writable = writableLedger(airportId);
+            writable.deltas.headMap(instant, false).clear();
+            writable.rebuildTimeline();
+        }
     }
 
-    public AirportSchedule copy() {
-        return new AirportSchedule(capacityByAirport, transitDeltas, finalDeltas, true);
+    public synchronized AirportSchedule copy() {
+        shared = true;
+        return new AirportSchedule(capacityByAirport, ledgers);
     }
 
     public synchronized void applyFrom(AirportSchedule other) {
-        ensureMutable();
-        transitDeltas.clear();
-        finalDeltas.clear();
-        transitDeltas.putAll(other.transitDeltas);
-        finalDeltas.putAll(other.finalDeltas);
-        shared = false;
+        ledgers = other.copy().ledgers;
+        ownedLedgers = new HashSet<>();
+        shared = true;
     }
 
-    private void cleanupMapUntil(Map<Key, Integer> map, String airportId, LocalDateTime instant) {
-        map.entrySet().removeIf(entry ->
-                entry.getKey().airportId.equals(airportId)
-                        && entry.getKey().instant.isBefore(instant)
-                        && entry.getValue() == 0);
+    private OccupancyTimeline timeline(String airportId) {
+        Ledger ledger = ledgers.get(airportId);
+        return ledger == null ? OccupancyTimeline.EMPTY : ledger.timeline;
     }
 
-    private void mergeDelta(Map<Key, Integer> map, Key key, int delta) {
-        map.merge(key, delta, Integer::sum);
+    private int capacityOf(String airportId) {
+        return capacityByAirport.getOrDefault(airportId, Integer.MAX_VALUE);
     }
 
-    private void cleanup(Map<Key, Integer> map) {
-        map.entrySet().removeIf(entry -> entry.getValue() == 0);
+    private static int occupiedAt(Ledger ledger, LocalDateTime instant) {
+        if (ledger == null) {
+            return 0;
+        }
+        // El árbol agrupa por minuto; se descuentan los deltas del mismo minuto posteriores al instante
+        int occupied = ledger.timeline.valueAt(OccupancyTimeline.minuteOf(instant));
+        LocalDateTime minuteEnd = instant.withSecond(0).withNano(0).plusMinutes(1);
+        for (int delta : ledger.deltas.subMap(instant, false, minuteEnd, false).values()) {
+            occupied -= delta;
+        }
+        return occupied;
     }
 
-    private boolean violatesCapacity() {
-        Map<String, Integer> occupancy = new HashMap<>();
-        NavigableMap<Key, Integer> combined = new TreeMap<>(transitDeltas);
-        finalDeltas.forEach((key, value) -> combined.merge(key, value, Integer::sum));
-        for (var entry : combined.entrySet()) {
-            String airportId = entry.getKey().airportId;
-            int updated = occupancy.getOrDefault(airportId, 0) + entry.getValue();
-            int capacity = capacityByAirport.getOrDefault(airportId, Integer.MAX_VALUE);
-            if (updated > capacity) {
-                return true;
-            }
-            occupancy.put(airportId, updated);
+    private Ledger writableLedger(String airportId) {
+        if (shared) {
+            ledgers = new HashMap<>(ledgers);
+            ownedLedgers = new HashSet<>();
+            shared = false;
+        }
+        Ledger ledger = ledgers.get(airportId);
+        if (ledger == null) {
+            ledger = new Ledger(new TreeMap<>(), OccupancyTimeline.EMPTY);
+        } else if (!ownedLedgers.contains(airportId)) {
+            ledger = new Ledger(new TreeMap<>(ledger.deltas), ledger.timeline);
+        } else {
+            return ledger;
         }
-        return false;
+        ledgers.put(airportId, ledger);
+        ownedLedgers.add(airportId);
+        return ledger;
     }
 
-    private static final class Key implements Comparable<Key> {
-        private final LocalDateTime instant;
-        private final String airportId;
+    private static final class Ledger {
+        private final TreeMap<LocalDateTime, Integer> deltas;
+        private OccupancyTimeline timeline;
 
-        private Key(LocalDateTime instant, String airportId) {
-            this.instant = instant;
-            this.airportId = airportId;
+        private Ledger(TreeMap<LocalDateTime, Integer> deltas, OccupancyTimeline timeline) {
+            this.deltas = deltas;
+            this.timeline = timeline;
         }
 
-        @Override
-        public int compareTo(Key other) {
-            int cmp = this.instant.compareTo(other.instant);
-            if (cmp != 0) return cmp;
-            return this.airportId.compareTo(other.airportId);
+        private void merge(LocalDateTime instant, int delta) {
+            // Los deltas que se anulan desaparecen del mapa
+            deltas.merge(instant, delta, (current, added) -> current + added == 0 ? null : current + added);
         }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) return true;
-            if (!(obj instanceof Key other)) return false;
-            return instant.equals(other.instant) && airportId.equals(other.airportId);
-        }
-
-        @Override
-        public int hashCode() {
-            return instant.hashCode() * 31 + airportId.hashCode();
+        private void rebuildTimeline() {
+            OccupancyTimeline rebuilt = OccupancyTimeline.EMPTY;
+            for (var entry : deltas.entrySet()) {
+                rebuilt = rebuilt.addFrom(OccupancyTimeline.minuteOf(entry.getKey()), entry.getValue());
+            }
+            timeline = rebuilt;
         }
     }
 }
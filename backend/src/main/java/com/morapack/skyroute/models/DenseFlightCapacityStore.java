@@ -0,0 +1,162 @@
+package com.morapack.skyroute.models;
+
+import java.util.Arrays;
+
+/**
+ * Tabla densa de capacidad usada por vuelo y día. Los vuelos se indexan por su orden de registro
+ * en Flights ({@link Flight#getIndex()}) y los días por desplazamiento desde {@code baseDay}.
+ * La tabla se divide en páginas de 256 vuelos de un mismo día; copy() comparte todas las páginas y
+ * cada instancia clona solo las páginas que escribe. Leer y reservar no asigna memoria salvo al
+ * clonar una página compartida.
+ */
+final class DenseFlightCapacityStore implements FlightCapacityStore {
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int DAY_HEADROOM = 7;
+
+    private int baseDay;
+    private int dayCount;
+    private int blocks;
+    // Índice de página = desplazamiento de día * blocks + bloque de vuelo; null = sin reservas
+    private int[][] pages = new int[0][];
+    private boolean[] owned = new boolean[0];
+    private boolean tableOwned = true;
+
+    DenseFlightCapacityStore() {}
+
+    private DenseFlightCapacityStore(int baseDay, int dayCount, int blocks, int[][] pages) {
+        this.baseDay = baseDay;
+        this.dayCount = dayCount;
+        this.blocks = blocks;
+        this.pages = pages;
+        this.tableOwned = false;
+    }
+
+    @Override
+    public int getRemaining(Flight flight, long epochDay) {
+        return flight.getDailyCapacity() - used(indexOf(flight), Math.toIntExact(epochDay));
+    }
+
+    @Override
+    public void setRemaining(Flight flight, long epochDay, int remaining) {
+        writeUsed(indexOf(flight), Math.toIntExact(epochDay), flight.getDailyCapacity() - remaining);
+    }
+
+    @Override
+    public void purgeBefore(long limitDay) {
+        if (dayCount == 0 || limitDay <= baseDay) {
+            return;
+        }
+        int drop = (int) Math.min(limitDay - baseDay, dayCount);
+        int from = drop * blocks;
+        int to = dayCount * blocks;
+        boolean[] keptOwnership = tableOwned ? Arrays.copyOfRange(owned, from, to) : new boolean[to - from];
+        pages = Arrays.copyOfRange(pages, from, to);
+        owned = keptOwnership;
+        tableOwned = true;
+        baseDay += drop;
+        dayCount -= drop;
+    }
+
+    @Override
+    public void purgeBefore(Flight flight, long limitDay) {
+        int index = indexOf(flight);
+        int end = (int) Math.min(limitDay, (long) baseDay + dayCount);
+        for (int day = baseDay; day < end; day++) {
+            if (used(index, day) != 0) {
+                writeUsed(index, day, 0);
+            }
+        }
+    }
+
+    @Override
+    public synchronized FlightCapacityStore copy() {
+        // A partir de aquí la tabla es compartida: ambos lados clonan antes de escribir
+        tableOwned = false;
+        return new DenseFlightCapacityStore(baseDay, dayCount, blocks, pages);
+    }
+
+    private int used(int index, int day) {
+        int offset = day - baseDay;
+        int block = index >>> PAGE_BITS;
+        if (offset < 0 || offset >= dayCount || block >= blocks) {
+            return 0;
+        }
+        int[] page = pages[offset * blocks + block];
+        return page == null ? 0 : page[index & PAGE_MASK];
+    }
+
+    private void writeUsed(int index, int day, int used) {
+        if (used == used(index, day)) {
+            return;
+        }
+        ensureCovers(index, day);
+        int[] page = writablePage((day - baseDay) * blocks + (index >>> PAGE_BITS));
+        page[index & PAGE_MASK] = used;
+    }
+
+    private int[] writablePage(int pageIndex) {
+        if (!tableOwned) {
+            pages = pages.clone();
+            owned = new boolean[pages.length];
+            tableOwned = true;
+        }
+        int[] page = pages[pageIndex];
+        if (page == null) {
+            page = new int[PAGE_SIZE];
+        } else if (!owned[pageIndex]) {
+            page = page.clone();
+        } else {
+            return page;
+        }
+        pages[pageIndex] = page;
+        owned[pageIndex] = true;
+        return page;
+    }
+
+    private void ensureCovers(int index, int day) {
+        int neededBlocks = Math.max(blocks, (index >>> PAGE_BITS) + 1);
+        if (dayCount == 0) {
+            relayout(day, DAY_HEADROOM, neededBlocks);
+            return;
+        }
+        int start = Math.min(baseDay, day);
+        int end = Math.max(baseDay + dayCount, day + 1);
+        if (start == baseDay && end == baseDay + dayCount && neededBlocks == blocks) {
+            return;
+        }
+        if (end > baseDay + dayCount) {
+            end = Math.max(end, baseDay + dayCount + DAY_HEADROOM);
+        }
+        relayout(start, end - start, neededBlocks);
+    }
+
+    private void relayout(int newBase, int newDayCount, int newBlocks) {
+        int[][] newPages = new int[newDayCount * newBlocks][];
+        boolean[] newOwned = new boolean[newPages.length];
+        for (int offset = 0; offset < dayCount; offset++) {
+            int target = offset + baseDay - newBase;
+            for (int block = 0; block < blocks; block++) {
+                int from = offset * blocks + block;
+                int to = target * newBlocks + block;
+                newPages[to] = pages[from];
+                newOwned[to] = tableOwned && owned[from];
+            }
+        }
+        pages = newPages;
+        owned = newOwned;
+        tableOwned = true;
+        baseDay = newBase;
+        dayCount = newDayCount;
+        blocks = newBlocks;
+    }
+
+    private static int indexOf(Flight flight) {
+        int index = flight.getIndex();
+        if (index < 0) {
+            throw new IllegalArgumentException("Flight " + flight.getId() + " is not registered in Flights");
+        }
+        return index;
+    }
+}
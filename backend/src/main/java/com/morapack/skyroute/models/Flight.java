@@ -13,6 +13,7 @@ import java.util.Set;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 @Data
@@ -40,6 +41,11 @@ public class Flight {
     @Transient
     private Set<LocalDate> cancelledDates = Set.of();
 
+    // Orden de registro en Flights; indexa la tabla densa de capacidad (-1 = sin registrar)
+    @Transient
+    @EqualsAndHashCode.Exclude
+    private int index = -1;
+
     public Flight(String id,
                   Airport origin,
                   Airport destination,
@@ -0,0 +1,19 @@
+package com.morapack.skyroute.models;
+
+/**
+ * Almacenamiento de capacidad remanente detrás de {@link FlightSchedule}.
+ * Los días son fechas locales de salida como epoch day. copy() debe ser barato: las implementaciones
+ * comparten estructura hasta la primera escritura.
+ */
+interface FlightCapacityStore {
+
+    int getRemaining(Flight flight, long epochDay);
+
+    void setRemaining(Flight flight, long epochDay, int remaining);
+
+    void purgeBefore(long limitDay);
+
+    void purgeBefore(Flight flight, long limitDay);
+
+    FlightCapacityStore copy();
+}
@@ -1,95 +1,92 @@
 package com.morapack.skyroute.models;
 
 import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 
+/**
+ * Capacidad remanente por vuelo y día. Los días sin reservas tienen la capacidad diaria completa.
+ * El almacenamiento es intercambiable: un HAMT persistente por clave (constructor sin argumentos) o
+ * una tabla densa por índice de vuelo ({@link #dense()}, la que usa Flights con
+ * {@code Config.DENSE_FLIGHT_SCHEDULE}); en ambos copy() es barato y solo se copia lo que se escribe.
+ * Las variantes con epoch day evitan crear LocalDate en los bucles de ruteo.
+ */
 public class FlightSchedule {
-    private Map<Key, Integer> remainingCapacity = new HashMap<>();
-    private boolean shared = false;
+    private FlightCapacityStore store;
 
-    public FlightSchedule() {}
+    public FlightSchedule() {
+        this(new PersistentFlightCapacityStore());
+    }
 
-    private FlightSchedule(Map<Key, Integer> snapshot, boolean shared) {
-        this.remainingCapacity = snapshot;
-        this.shared = shared;
+    private FlightSchedule(FlightCapacityStore store) {
+        this.store = store;
     }
 
-    private void ensureMutable() {
-        if (shared) {
-            remainingCapacity = new HashMap<>(remainingCapacity);
-            shared = false;
-        }
+    /**
+     * Schedule sobre tabla densa; requiere vuelos registrados en Flights (índice asignado).
+     */
+    public static FlightSchedule dense() {
+        return new FlightSchedule(new DenseFlightCapacityStore());
     }
 
     public boolean tryReserve(Flight flight, LocalDate date, int quantity) {
-        Objects.requireNonNull(flight, "flight");
         Objects.requireNonNull(date, "date");
+        return tryReserve(flight, date.toEpochDay(), quantity);
+    }
+
+    public boolean tryReserve(Flight flight, long epochDay, int quantity) {
+        Objects.requireNonNull(flight, "flight");
         if (quantity <= 0) {
             return true;
         }
-        if (flight.isCancelled(date)) {
+        if (!flight.getCancelledDates().isEmpty() && flight.isCancelled(LocalDate.ofEpochDay(epochDay))) {
             return false;
         }
-        ensureMutable();
-        Key key = new Key(flight.getId(), date);
-        int available = remainingCapacity.getOrDefault(key, flight.getDailyCapacity());
+        int available = store.getRemaining(flight, epochDay);
         if (available < quantity) {
             return false;
         }
-        int updated = available - quantity;
-        if (updated == flight.getDailyCapacity()) {
-            remainingCapacity.remove(key);
-        } else {
-            remainingCapacity.put(key, updated);
-        }
+        store.setRemaining(flight, epochDay, available - quantity);
         return true;
     }
 
     public void release(Flight flight, LocalDate date, int quantity) {
+        release(flight, date.toEpochDay(), quantity);
+    }
+
+    public void release(Flight flight, long epochDay, int quantity) {
         if (quantity <= 0) {
             return;
         }
-        ensureMutable();
-        Key key = new Key(flight.getId(), date);
-        int available = remainingCapacity.getOrDefault(key, flight.getDailyCapacity());
-        int updated = available + quantity;
+        int updated = store.getRemaining(flight, epochDay) + quantity;
         if (updated > flight.getDailyCapacity()) {
             throw new IllegalArgumentException("Releasing more capacity than available for flight " + flight.getId());
         }
-        if (updated == flight.getDailyCapacity()) {
-            remainingCapacity.remove(key);
-        } else {
-            remainingCapacity.put(key, updated);
-        }
+        store.setRemaining(flight, epochDay, updated);
     }
 
     public int getRemainingCapacity(Flight flight, LocalDate date) {
-        Key key = new Key(flight.getId(), date);
-        return remainingCapacity.getOrDefault(key, flight.getDailyCapacity());
+        return store.getRemaining(flight, date.toEpochDay());
+    }
+
+    public int getRemainingCapacity(Flight flight, long epochDay) {
+        return store.getRemaining(flight, epochDay);
     }
 
     public void purgeBefore(LocalDate limitDate) {
-        remainingCapacity.keySet().removeIf(key -> key.date.isBefore(limitDate));
+        store.purgeBefore(limitDate.toEpochDay());
     }
 
     public void purgeBefore(Flight flight, LocalDate limitDate) {
         Objects.requireNonNull(flight, "flight");
         Objects.requireNonNull(limitDate, "limitDate");
-        remainingCapacity.keySet().removeIf(key ->
-                key.flightId.equals(flight.getId()) && key.date.isBefore(limitDate));
+        store.purgeBefore(flight, limitDate.toEpochDay());
     }
 
     public void applyFrom(FlightSchedule other) {
-        remainingCapacity.clear();
-        remainingCapacity.putAll(other.remainingCapacity);
-        shared = false;
+        store = other.store.copy();
     }
 
     public FlightSchedule copy() {
-        return new FlightSchedule(this.remainingCapacity, true);
+        return new FlightSchedule(store.copy());
     }
-
-    private record Key(String flightId, LocalDate date) {}
 }
@@ -0,0 +1,164 @@
+package com.morapack.skyroute.models;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Ocupación de un almacén en el tiempo como árbol de segmentos persistente sobre minutos: suma en
+ * rango (de un minuto en adelante) y máximo en rango en O(log n). Es inmutable; cada escritura
+ * devuelve una línea nueva que comparte con la anterior todo menos el camino modificado.
+ * El rango cubierto crece por duplicación; más allá del último minuto la ocupación es {@code tail}.
+ */
+final class OccupancyTimeline {
+    private static final long INITIAL_SPAN = 1L << 16; // ~45 días en minutos
+    static final OccupancyTimeline EMPTY = new OccupancyTimeline(0, 0, null, 0);
+
+    private final long origin;
+    private final long span;
+    private final Node root;
+    private final int tail;
+
+    private OccupancyTimeline(long origin, long span, Node root, int tail) {
+        this.origin = origin;
+        this.span = span;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    static long minuteOf(LocalDateTime instant) {
+        return Math.floorDiv(instant.toEpochSecond(ZoneOffset.UTC), 60L);
+    }
+
+    /**
+     * Suma delta a la ocupación desde el minuto dado (inclusive) en adelante.
+     */
+    OccupancyTimeline addFrom(long minute, int delta) {
+        if (delta == 0) {
+            return this;
+        }
+        OccupancyTimeline covering = covering(minute);
+        long end = covering.origin + covering.span;
+        Node updated = add(covering.root, covering.origin, end, minute, delta);
+        return new OccupancyTimeline(covering.origin, covering.span, updated, covering.tail + delta);
+    }
+
+    /**
+     * Máxima ocupación en [from, to); 0 fuera de lo registrado antes del primer minuto.
+     */
+    int maxOver(long from, long to) {
+        if (from >= to) {
+            throw new IllegalArgumentException("Empty range");
+        }
+        if (span == 0) {
+            return 0;
+        }
+        long end = origin + span;
+        int best = Integer.MIN_VALUE;
+        if (from < origin) {
+            best = 0;
+        }
+        if (to > end) {
+            best = Math.max(best, tail);
+        }
+        long a = Math.max(from, origin);
+        long b = Math.min(to, end);
+        if (a < b) {
+            best = Math.max(best, max(root, origin, end, a, b));
+        }
+        return best;
+    }
+
+    int valueAt(long minute) {
+        if (span == 0 || minute < origin) {
+            return 0;
+        }
+        if (minute >= origin + span) {
+            return tail;
+        }
+        int value = 0;
+        Node node = root;
+        long lo = origin;
+        long hi = origin + span;
+        while (node != null) {
+            value += node.add;
+            long mid = (lo + hi) >>> 1;
+            if (minute < mid) {
+                node = node.left;
+                hi = mid;
+            } else {
+                node = node.right;
+                lo = mid;
+            }
+        }
+        return value;
+    }
+
+    private OccupancyTimeline covering(long minute) {
+        if (span == 0) {
+            return new OccupancyTimeline(minute, INITIAL_SPAN, null, 0);
+        }
+        long start = origin;
+        long size = span;
+        Node node = root;
+        while (minute < start) {
+            // Antes del origen no hay deltas: la mitad nueva es cero
+            node = node == null ? null : new Node(0, null, node);
+            start -= size;
+            size <<= 1;
+        }
+        while (minute >= start + size) {
+            Node constant = tail == 0 ? null : new Node(tail, null, null);
+            node = node == null && constant == null ? null : new Node(0, node, constant);
+            size <<= 1;
+        }
+        return new OccupancyTimeline(start, size, node, tail);
+    }
+
+    private static Node add(Node node, long lo, long hi, long from, int delta) {
+        if (from <= lo) {
+            return node == null ? new Node(delta, null, null) : new Node(node.add + delta, node.left, node.right);
+        }
+        if (from >= hi) {
+            return node;
+        }
+        long mid = (lo + hi) >>> 1;
+        Node left = node == null ? null : node.left;
+        Node right = node == null ? null : node.right;
+        return new Node(node == null ? 0 : node.add,
+                add(left, lo, mid, from, delta),
+                add(right, mid, hi, from, delta));
+    }
+
+    private static int max(Node node, long lo, long hi, long a, long b) {
+        if (node == null) {
+            return 0;
+        }
+        if (a <= lo && hi <= b) {
+            return node.max;
+        }
+        long mid = (lo + hi) >>> 1;
+        int best = Integer.MIN_VALUE;
+        if (a < mid) {
+            best = max(node.left, lo, mid, a, Math.min(b, mid));
+        }
+        if (b > mid) {
+            best = Math.max(best, max(node.right, mid, hi, Math.max(a, mid), b));
+        }
+        return node.add + best;
+    }
+
+    private static final class Node {
+        private final int add;
+        private final int max;
+        private final Node left;
+        private final Node right;
+
+        private Node(int add, Node left, Node right) {
+            this.add = add;
+            this.left = left;
+            this.right = right;
+            int childMax = Math.max(left == null ? 0 : left.max, right == null ? 0 : right.max);
+            this.max = add + childMax;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.morapack.skyroute.models;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Mapa persistente (HAMT) de clave a entero. Cada escritura devuelve un mapa nuevo que comparte
+ * con el anterior todo menos el camino modificado, así que copiar un schedule es O(1) y una reserva
+ * solo copia O(log32 n) nodos.
+ */
+final class PersistentCapacityMap<K> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentCapacityMap<?> EMPTY = new PersistentCapacityMap<>(null);
+
+    private final Node root;
+
+    private PersistentCapacityMap(Node root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K> PersistentCapacityMap<K> empty() {
+        return (PersistentCapacityMap<K>) EMPTY;
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    int get(K key, int missing) {
+        Objects.requireNonNull(key, "key");
+        int hash = hash(key);
+        Object slot = root;
+        int shift = 0;
+        while (slot != null) {
+            if (slot instanceof Node node) {
+                int bit = bit(hash, shift);
+                if ((node.bitmap & bit) == 0) {
+                    return missing;
+                }
+                slot = node.slots[node.index(bit)];
+                shift += BITS;
+            } else if (slot instanceof Entry entry) {
+                return entry.hash == hash && entry.key.equals(key) ? entry.value : missing;
+            } else {
+                Collision collision = (Collision) slot;
+                if (collision.hash != hash) {
+                    return missing;
+                }
+                for (Entry entry : collision.entries) {
+                    if (entry.key.equals(key)) {
+                        return entry.value;
+                    }
+                }
+                return missing;
+            }
+        }
+        return missing;
+    }
+
+    PersistentCapacityMap<K> put(K key, int value) {
+        Objects.requireNonNull(key, "key");
+        Entry entry = new Entry(hash(key), key, value);
+        Node updated = root == null ? Node.single(entry, 0) : put(root, 0, entry);
+        return updated == root ? this : new PersistentCapacityMap<>(updated);
+    }
+
+    PersistentCapacityMap<K> remove(K key) {
+        Objects.requireNonNull(key, "key");
+        if (root == null) {
+            return this;
+        }
+        Object updated = remove(root, 0, hash(key), key);
+        if (updated == root) {
+            return this;
+        }
+        return new PersistentCapacityMap<>(asRoot(updated));
+    }
+
+    /**
+     * Devuelve un mapa sin las claves que cumplen el predicado; los subárboles sin cambios se comparten.
+     */
+    PersistentCapacityMap<K> removeIf(Predicate<? super K> predicate) {
+        if (root == null) {
+            return this;
+        }
+        Object updated = filter(root, predicate);
+        if (updated == root) {
+            return this;
+        }
+        return new PersistentCapacityMap<>(asRoot(updated));
+    }
+
+    private static Node asRoot(Object slot) {
+        if (slot == null || slot instanceof Node) {
+            return (Node) slot;
+        }
+        // La raíz siempre es un nodo para que get pueda descender por bits
+        return Node.single(slot, 0);
+    }
+
+    private static Node put(Node node, int shift, Entry entry) {
+        int bit = bit(entry.hash, shift);
+        int idx = node.index(bit);
+        if ((node.bitmap & bit) == 0) {
+            return node.insert(bit, idx, entry);
+        }
+        Object slot = node.slots[idx];
+        Object replacement;
+        if (slot instanceof Node child) {
+            replacement = put(child, shift + BITS, entry);
+        } else if (slot instanceof Entry existing) {
+            if (existing.hash == entry.hash && existing.key.equals(entry.key)) {
+                replacement = existing.value == entry.value ? existing : entry;
+            } else {
+                replacement = merge(shift + BITS, existing, existing.hash, entry);
+            }
+        } else {
+            Collision collision = (Collision) slot;
+            replacement = collision.hash == entry.hash
+                    ? collision.put(entry)
+                    : merge(shift + BITS, collision, collision.hash, entry);
+        }
+        return replacement == slot ? node : node.replace(idx, replacement);
+    }
+
+    private static Object merge(int shift, Object existing, int existingHash, Entry entry) {
+        if (existingHash == entry.hash) {
+            return ((Entry) existing).collideWith(entry);
+        }
+        int existingBit = bit(existingHash, shift);
+        int entryBit = bit(entry.hash, shift);
+        if (existingBit == entryBit) {
+            return Node.single(merge(shift + BITS, existing, existingHash, entry), existingBit);
+        }
+        Object[] slots = Integer.compareUnsigned(existingBit, entryBit) < 0
+                ? new Object[]{existing, entry}
+                : new Object[]{entry, existing};
+        return new Node(existingBit | entryBit, slots);
+    }
+
+    private static Object remove(Node node, int shift, int hash, Object key) {
+        int bit = bit(hash, shift);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int idx = node.index(bit);
+        Object slot = node.slots[idx];
+        Object replacement;
+        if (slot instanceof Node child) {
+            replacement = remove(child, shift + BITS, hash, key);
+        } else if (slot instanceof Entry entry) {
+            replacement = entry.hash == hash && entry.key.equals(key) ? null : entry;
+        } else {
+            Collision collision = (Collision) slot;
+            replacement = collision.hash == hash ? collision.remove(key) : collision;
+        }
+        if (replacement == slot) {
+            return node;
+        }
+        return node.withSlot(idx, bit, replacement);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object filter(Object slot, Predicate<?> predicate) {
+        Predicate<Object> test = (Predicate<Object>) predicate;
+        if (slot instanceof Entry entry) {
+            return test.test(entry.key) ? null : entry;
+        }
+        if (slot instanceof Collision collision) {
+            Entry[] kept = new Entry[collision.entries.length];
+            int count = 0;
+            for (Entry entry : collision.entries) {
+                if (!test.test(entry.key)) {
+                    kept[count++] = entry;
+                }
+            }
+            if (count == kept.length) {
+                return collision;
+            }
+            if (count == 0) {
+                return null;
+            }
+            if (count == 1) {
+                return kept[0];
+            }
+            Entry[] trimmed = new Entry[count];
+            System.arraycopy(kept, 0, trimmed, 0, count);
+            return new Collision(collision.hash, trimmed);
+        }
+        Node node = (Node) slot;
+        Object[] filtered = null;
+        for (int i = 0; i < node.slots.length; i++) {
+            Object child = node.slots[i];
+            Object result = filter(child, predicate);
+            if (result != child && filtered == null) {
+                filtered = node.slots.clone();
+            }
+            if (filtered != null) {
+                filtered[i] = result;
+            }
+        }
+        if (filtered == null) {
+            return node;
+        }
+        int bitmap = 0;
+        int count = 0;
+        int remaining = node.bitmap;
+        Object[] kept = new Object[filtered.length];
+        for (Object child : filtered) {
+            int bit = Integer.lowestOneBit(remaining);
+            remaining &= remaining - 1;
+            if (child != null) {
+                bitmap |= bit;
+                kept[count++] = child;
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        if (count == 1 && !(kept[0] instanceof Node)) {
+            return kept[0];
+        }
+        Object[] slots = new Object[count];
+        System.arraycopy(kept, 0, slots, 0, count);
+        return new Node(bitmap, slots);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private static Node single(Object slot, int bit) {
+            if (bit == 0) {
+                int hash = slot instanceof Entry entry ? entry.hash : ((Collision) slot).hash;
+                bit = PersistentCapacityMap.bit(hash, 0);
+            }
+            return new Node(bit, new Object[]{slot});
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node insert(int bit, int idx, Object slot) {
+            Object[] copy = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, copy, 0, idx);
+            copy[idx] = slot;
+            System.arraycopy(slots, idx, copy, idx + 1, slots.length - idx);
+            return new Node(bitmap | bit, copy);
+        }
+
+        private Node replace(int idx, Object slot) {
+            Object[] copy = slots.clone();
+            copy[idx] = slot;
+            return new Node(bitmap, copy);
+        }
+
+        /**
+         * Reemplaza o elimina (slot == null) una posición. Si el nodo queda con un único hijo hoja,
+         * devuelve la hoja para que el padre la suba de nivel; si queda vacío devuelve null.
+         */
+        private Object withSlot(int idx, int bit, Object slot) {
+            if (slot != null) {
+                if (slot instanceof Node child && child.slots.length == 1 && !(child.slots[0] instanceof Node)) {
+                    slot = child.slots[0];
+                }
+                return replace(idx, slot);
+            }
+            if (slots.length == 1) {
+                return null;
+            }
+            if (slots.length == 2 && !(slots[1 - idx] instanceof Node)) {
+                return slots[1 - idx];
+            }
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, idx);
+            System.arraycopy(slots, idx + 1, copy, idx, slots.length - idx - 1);
+            return new Node(bitmap & ~bit, copy);
+        }
+    }
+
+    private static final class Entry {
+        private final int hash;
+        private final Object key;
+        private final int value;
+
+        private Entry(int hash, Object key, int value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        private Collision collideWith(Entry other) {
+            return new Collision(hash, new Entry[]{this, other});
+        }
+    }
+
+    private static final class Collision {
+        private final int hash;
+        private final Entry[] entries;
+
+        private Collision(int hash, Entry[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        private Collision put(Entry entry) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(entry.key)) {
+                    if (entries[i].value == entry.value) {
+                        return this;
+                    }
+                    Entry[] copy = entries.clone();
+                    copy[i] = entry;
+                    return new Collision(hash, copy);
+                }
+            }
+            Entry[] copy = new Entry[entries.length + 1];
+            System.arraycopy(entries, 0, copy, 0, entries.length);
+            copy[entries.length] = entry;
+            return new Collision(hash, copy);
+        }
+
+        private Object remove(Object key) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(key)) {
+                    if (entries.length == 2) {
+                        return entries[1 - i];
+                    }
+                    Entry[] copy = new Entry[entries.length - 1];
+                    System.arraycopy(entries, 0, copy, 0, i);
+                    System.arraycopy(entries, i + 1, copy, i, entries.length - i - 1);
+                    return new Collision(hash, copy);
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.morapack.skyroute.models;
+
+/**
+ * Capacidad por (vuelo, día) sobre un {@link PersistentCapacityMap}; solo guarda días con reservas.
+ */
+final class PersistentFlightCapacityStore implements FlightCapacityStore {
+    private PersistentCapacityMap<Key> remainingCapacity;
+
+    PersistentFlightCapacityStore() {
+        this(PersistentCapacityMap.empty());
+    }
+
+    private PersistentFlightCapacityStore(PersistentCapacityMap<Key> snapshot) {
+        this.remainingCapacity = snapshot;
+    }
+
+    @Override
+    public int getRemaining(Flight flight, long epochDay) {
+        return remainingCapacity.get(new Key(flight.getId(), epochDay), flight.getDailyCapacity());
+    }
+
+    @Override
+    public void setRemaining(Flight flight, long epochDay, int remaining) {
+        Key key = new Key(flight.getId(), epochDay);
+        if (remaining == flight.getDailyCapacity()) {
+            remainingCapacity = remainingCapacity.remove(key);
+        } else {
+            remainingCapacity = remainingCapacity.put(key, remaining);
+        }
+    }
+
+    @Override
+    public void purgeBefore(long limitDay) {
+        remainingCapacity = remainingCapacity.removeIf(key -> key.epochDay < limitDay);
+    }
+
+    @Override
+    public void purgeBefore(Flight flight, long limitDay) {
+        remainingCapacity = remainingCapacity.removeIf(key ->
+                key.flightId.equals(flight.getId()) && key.epochDay < limitDay);
+    }
+
+    @Override
+    public FlightCapacityStore copy() {
+        return new PersistentFlightCapacityStore(remainingCapacity);
+    }
+
+    private record Key(String flightId, long epochDay) {}
+}
@@ -1,13 +1,17 @@
 package com.morapack.skyroute.plan.controller;
 
+import com.morapack.skyroute.algorithm.OptimizerEngine;
 import com.morapack.skyroute.models.CurrentPlan;
 import com.morapack.skyroute.plan.service.PlanningService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/api/plan")
@@ -19,9 +23,18 @@ public class PlanController {
         this.planningService = planningService;
     }
 
+    /**
+     * Corre el planificador; {@code engine} elige el motor (GENETIC por defecto o ALNS).
+     */
     @PostMapping("/run")
-    public ResponseEntity<CurrentPlan> runAlgorithm() {
-        CurrentPlan plan = planningService.run();
+    public ResponseEntity<CurrentPlan> runAlgorithm(@RequestParam(required = false) String engine) {
+        OptimizerEngine resolved;
+        try {
+            resolved = OptimizerEngine.fromName(engine);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        CurrentPlan plan = planningService.run(resolved);
         return ResponseEntity.ok(plan);
     }
 
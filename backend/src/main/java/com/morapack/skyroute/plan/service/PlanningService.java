@@ -1,7 +1,9 @@
 package com.morapack.skyroute.plan.service;
 
-import com.morapack.skyroute.algorithm.GeneticAlgorithm;
 import com.morapack.skyroute.algorithm.Individual;
+import com.morapack.skyroute.algorithm.LocalSearchPolisher;
+import com.morapack.skyroute.algorithm.OptimizerEngine;
+import com.morapack.skyroute.algorithm.PlanOptimizer;
 import com.morapack.skyroute.config.Config;
 import com.morapack.skyroute.models.CurrentPlan;
 import com.morapack.skyroute.models.Flight;
@@ -39,14 +41,19 @@ public class PlanningService {
     }
 
     @Transactional
-    public CurrentPlan run() {
+    public CurrentPlan run(OptimizerEngine engine) {
         WorldBuilder.Snapshot snapshot = worldBuilder.buildOperationalSnapshot();
         if (snapshot.demand().isEmpty()) {
             throw new IllegalStateException("No orders available to run the genetic algorithm.");
         }
 
-        GeneticAlgorithm geneticAlgorithm = new GeneticAlgorithm(snapshot.world(), snapshot.demand());
-        Individual best = geneticAlgorithm.run(Config.POP_SIZE, Config.OPERATION_MAX_GEN);
+        PlanOptimizer optimizer = engine.create(snapshot.world(), snapshot.demand());
+        Individual best = optimizer.runTimed(Config.POP_SIZE, Config.OPERATION_MAX_GEN, 0L, null, List.of(), List.of());
+        Individual polished = new LocalSearchPolisher(snapshot.world(), snapshot.demand()).polish(best, Config.LOCAL_SEARCH_BUDGET_MS);
+        if (polished != best) {
+            polished.applyToWorld(snapshot.world());
+            best = polished;
+        }
         CurrentPlan entity = mapper.toEntity(best);
         persistFlightCapacities(entity);
         planRepository.save(entity);
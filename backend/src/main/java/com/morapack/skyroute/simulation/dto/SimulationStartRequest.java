@@ -7,5 +7,6 @@ public record SimulationStartRequest(
         LocalDateTime endDate,
         Integer windowMinutes,
         Boolean useHeuristicSeed,
-        String prewarmToken
+        String prewarmToken,
+        String engine
 ) {}
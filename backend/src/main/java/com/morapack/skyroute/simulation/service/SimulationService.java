@@ -1,8 +1,10 @@
 package com.morapack.skyroute.simulation.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.morapack.skyroute.algorithm.GeneticAlgorithm;
 import com.morapack.skyroute.algorithm.Individual;
+import com.morapack.skyroute.algorithm.LocalSearchPolisher;
+import com.morapack.skyroute.algorithm.OptimizerEngine;
+import com.morapack.skyroute.algorithm.PlanOptimizer;
 import com.morapack.skyroute.config.Config;
 import com.morapack.skyroute.config.World;
 import com.morapack.skyroute.models.Order;
@@ -63,6 +65,8 @@ public class SimulationService {
 
     private static final String TOPIC_PREFIX = "/topic/simulations/";
     private static final double DEFAULT_SIM_SPEED = 112.0;
+    // Holgura para que el GA anytime termine su último hijo antes del inicio del slot
+    private static final long ANYTIME_MARGIN_MS = 250L;
     private final Random random = new Random();
     private final WorldBuilder worldBuilder;
     private final OrderRepository orderRepository;
@@ -115,8 +119,16 @@ public class SimulationService {
                 range.start(),
                 firstWindowEnd);
 
+        OptimizerEngine engine;
+        try {
+            engine = OptimizerEngine.fromName(request != null ? request.engine() : null);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+
         UUID simulationId = UUID.randomUUID();
         SimulationSession session = new SimulationSession(simulationId, (int) totalCount);
+        session.engine = engine;
         session.simStartInstant = range.start();
         session.touch();
         session.simSpeed = DEFAULT_SIM_SPEED;
@@ -317,6 +329,11 @@ public class SimulationService {
                     scheduleStartMillis = now; // resync cadence
                 }
                 long waitMs = targetStart - now;
+                Individual idleBest = previousBest;
+                if (Config.SIM_ANYTIME_OPTIMIZATION && waitMs > Config.SIM_ANYTIME_MIN_IDLE_MS && !session.cancelled.get()) {
+                    idleBest = improveWhileIdle(session, previousBest, waitMs - ANYTIME_MARGIN_MS);
+                    waitMs = targetStart - System.currentTimeMillis();
+                }
                 while (waitMs > 0 && !session.cancelled.get()) {
                     waitIfPaused(session);
                     long step = Math.min(200L, waitMs);
@@ -333,6 +350,11 @@ public class SimulationService {
                     log.warn("[SIM:{}] Simulation cancelled before batch {}", session.id, batchIndex + 1);
                     break;
                 }
+                // Lo mejorado en la espera se publica recién en el borde del batch
+                if (idleBest != previousBest) {
+                    idleBest.applyToWorld(world);
+                    previousBest = idleBest;
+                }
                 Instant windowEnd = cursorStart.plus(windowDuration);
                 if (rangeEnd != null && windowEnd.isAfter(rangeEnd)) {
                     windowEnd = rangeEnd;
@@ -396,6 +418,13 @@ public class SimulationService {
                                     boolean useHeuristicSeed,
                                     long targetEndMillis) {
         long iterationStart = System.nanoTime();
+        // La población que evolucionó en la espera se toma recién aquí, ya dentro del slot del batch
+        if (session.populationStale && session.lastOptimizer != null) {
+            session.lastPopulation = session.lastOptimizer.snapshotPopulation();
+        }
+        session.populationStale = false;
+        // La población del GA anterior deja de corresponder a la demanda en cuanto entra el batch
+        session.lastOptimizer = null;
         // Procesamos órdenes del batch en orden cronológico para que la semilla heurística respete el timeline
         List<Order> orderedBatch = batch.stream()
                 .sorted(Comparator.comparing(Order::getCreationUtc))
@@ -457,10 +486,11 @@ public class SimulationService {
             log.warn("[SIM:{}] No active orders after pruning; skipping GA for this batch", session.id);
             return heuristicSeed != null ? heuristicSeed : previousBest;
         }
-        GeneticAlgorithm ga = new GeneticAlgorithm(world, List.copyOf(demand));
+        PlanOptimizer ga = session.engine.create(world, List.copyOf(demand));
         log.info("[SIM:{}] Starting GA for batch (simTime={})", session.id, simInstant);
         long start = System.nanoTime();
-        long gaBudgetMs = Math.max(1_000L, targetEndMillis - System.currentTimeMillis());
+        // El pulido con búsqueda local sale del mismo slot: se descuenta del presupuesto del GA
+        long gaBudgetMs = Math.max(1_000L, targetEndMillis - System.currentTimeMillis() - Config.LOCAL_SEARCH_BUDGET_MS);
         Individual best = ga.runTimed(
                 Config.POP_SIZE,
                 Config.MAX_GEN,
@@ -471,9 +501,16 @@ public class SimulationService {
         );
         long gaDuration = System.nanoTime() - start;
         session.lastPopulation = ga.snapshotPopulation();
+        session.lastOptimizer = ga;
         session.gaRuns.incrementAndGet();
+        Individual polished = new LocalSearchPolisher(world, List.copyOf(demand)).polish(best, Config.LOCAL_SEARCH_BUDGET_MS);
+        if (polished != best) {
+            log.info("[SIM:{}] Local search: violations {} -> {}", session.id, best.getSlaViolations(), polished.getSlaViolations());
+            polished.applyToWorld(world);
+            best = polished;
+        }
 
-        log.info("[SIM:{}] GA done for batch of {} orders (took {} ms)", session.id, orderedBatch.size(), gaDuration / 1_000_000);
+        log.info("[SIM:{}] GA done for batch of {} orders (took {} ms, stop={})", session.id, orderedBatch.size(), gaDuration / 1_000_000, ga.getLastStopReason());
         var planIds = best.getPlans().stream().map(OrderPlan::getOrderId).toList();
         log.info("[SIM:{}] Best individual plans count={} ids={}", session.id, planIds.size(), planIds);
         log.info("[SIM:{}] Metrics for batch: gaRun={} ms, iterationTotal={} ms",
@@ -545,6 +582,43 @@ public class SimulationService {
         return best;
     }
 
+    /**
+     * Modo anytime: mientras se espera el siguiente slot sigue evolucionando la población del último GA.
+     * Nada se publica aquí: la población queda como carry-over y el mejor se aplica al mundo en el borde
+     * del siguiente batch, donde pasa a ser la semilla; reemplaza al anterior solo si tiene menos
+     * violaciones de SLA o, con las mismas, menos atraso ({@link Individual#BY_SLA}), no por fitness, que
+     * premia la tardanza. Se corta al llegar el slot (presupuesto), al pausar o al cancelar. Del
+     * presupuesto se descuenta lo que la corrida anterior se pasó (la reconciliación al cerrar), y el
+     * snapshot de la población se deja para el inicio del batch, así la espera no corre el slot.
+     */
+    private Individual improveWhileIdle(SimulationSession session, Individual previousBest, long budgetMs) {
+        PlanOptimizer optimizer = session.lastOptimizer;
+        if (optimizer == null || previousBest == null) {
+            return previousBest;
+        }
+        long runMs = budgetMs - session.idleOverrunMs;
+        if (runMs <= 0) {
+            // La espera no alcanza; se baja la estimación para volver a medirla en una espera próxima
+            session.idleOverrunMs /= 2;
+            return previousBest;
+        }
+        long start = System.nanoTime();
+        try {
+            Individual improved = optimizer.continueTimed(Config.POP_SIZE, runMs,
+                    () -> session.cancelled.get() || session.paused.get());
+            session.idleOverrunMs = Math.max(0L, nanosToMillis(System.nanoTime() - start) - runMs);
+            session.populationStale = true;
+            log.info("[SIM:{}] Anytime GA during idle wait: {} ms, stop={}, violations {} -> {}, tardiness {} -> {} min",
+                    session.id, nanosToMillis(System.nanoTime() - start), optimizer.getLastStopReason(),
+                    previousBest.getSlaViolations(), improved.getSlaViolations(),
+                    previousBest.getTardinessMinutes(), improved.getTardinessMinutes());
+            return Individual.BY_SLA.compare(improved, previousBest) < 0 ? improved : previousBest;
+        } catch (RuntimeException ex) {
+            log.warn("[SIM:{}] Anytime GA failed; keeping previous plan: {}", session.id, ex.getMessage());
+            return previousBest;
+        }
+    }
+
     // Sobrecarga para compatibilidad: usa una ventana fija de 60s desde ahora
     private Individual processBatch(SimulationSession session,
                                     World world,
@@ -1045,6 +1119,13 @@ public class SimulationService {
         private volatile Path diffFile;
         private final AtomicInteger gaRuns = new AtomicInteger();
         private volatile List<Individual> lastPopulation = List.of();
+        // Optimizador del último batch, para el modo anytime entre slots
+        private volatile PlanOptimizer lastOptimizer;
+        // La población de lastOptimizer evolucionó en la espera y aún no se tomó su snapshot
+        private volatile boolean populationStale;
+        // Cuánto se pasó de su presupuesto el último GA anytime (reconciliación al cerrar)
+        private volatile long idleOverrunMs;
+        private volatile OptimizerEngine engine = OptimizerEngine.GENETIC;
         private volatile ScheduledFuture<?> ticker;
         private volatile Instant simStartInstant;
         private volatile Instant endInstant;
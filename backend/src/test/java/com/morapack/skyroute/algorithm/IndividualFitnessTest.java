@@ -0,0 +1,126 @@
+package com.morapack.skyroute.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.morapack.skyroute.config.World;
+import com.morapack.skyroute.models.AirportSchedule;
+import com.morapack.skyroute.models.Flight;
+import com.morapack.skyroute.models.FlightSchedule;
+import com.morapack.skyroute.models.Order;
+
+/**
+ * El fitness incremental (herencia del padre más los planes quitados y agregados) debe coincidir con
+ * una evaluación completa de los mismos planes, y las reservas del individuo con las de sus planes.
+ */
+class IndividualFitnessTest {
+
+    @Test
+    void geneticOperatorsMatchFullEvaluation() throws Exception {
+        World world = TestWorlds.world();
+        List<Order> orders = TestWorlds.orders(world, 300, 5);
+        Set<String> kept = new HashSet<>();
+        for (Order order : orders.subList(0, 200)) {
+            kept.add(order.getId());
+        }
+        Random rnd = new Random(3);
+        List<Individual> population = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            population.add(Individual.randomIndividual(world, orders, rnd));
+        }
+        for (int i = 0; i < 40; i++) {
+            Individual first = population.get(rnd.nextInt(population.size()));
+            Individual second = population.get(rnd.nextInt(population.size()));
+            Individual child = switch (i % 4) {
+                case 0 -> Individual.mutate(world, orders, first, rnd);
+                case 1 -> Individual.crossover(world, orders, first, second, rnd);
+                case 2 -> first.pruneToOrders(world, kept);
+                default -> first.copy();
+            };
+            if (child == null) {
+                continue;
+            }
+            assertMatchesFullEvaluation(child);
+            if (i % 4 == 2) {
+                Individual refilled = child.tryInsertOrders(world, orders.subList(200, 300), rnd);
+                if (refilled != null) {
+                    assertMatchesFullEvaluation(refilled);
+                    child = refilled;
+                }
+            }
+            population.add(child);
+        }
+    }
+
+    @Test
+    void replacePlansMatchesFullEvaluation() throws Exception {
+        World world = TestWorlds.world();
+        List<Order> orders = TestWorlds.orders(world, 200, 11);
+        Random rnd = new Random(17);
+        Individual parent = Individual.randomIndividual(world, orders, rnd);
+        FlightSchedule flightSchedule = parent.getFlightSchedule().copy();
+        AirportSchedule airportSchedule = parent.getAirportSchedule().copy();
+        List<Order> destroyed = new ArrayList<>(orders);
+        Collections.shuffle(destroyed, rnd);
+        destroyed = destroyed.subList(0, 30);
+        for (Order order : destroyed) {
+            Individual.releasePlan(world, parent.plan(order.getId()), flightSchedule, airportSchedule);
+        }
+        RouteBuilder builder = new RouteBuilder(world, flightSchedule, airportSchedule, rnd,
+                RouteBuilder.SelectionMode.HEURISTIC_APPROACH);
+        List<PlanGene> repaired = new ArrayList<>();
+        for (Order order : destroyed) {
+            List<String> hubs = new ArrayList<>(RouteBuilder.PRODUCTION_HUBS);
+            Collections.shuffle(hubs, rnd);
+            repaired.add(Individual.buildPlanFromHubs(order, hubs, builder, world));
+        }
+        Individual child = Individual.replacePlans(parent, repaired, flightSchedule, airportSchedule);
+        assertMatchesFullEvaluation(child);
+        assertEquals(orders.size(), child.genes().size());
+    }
+
+    @Test
+    void releasingEveryPlanRestoresWorldCapacity() throws Exception {
+        World world = TestWorlds.world();
+        List<Order> orders = TestWorlds.orders(world, 200, 23);
+        Individual individual = Individual.randomIndividual(world, orders, new Random(29));
+        FlightSchedule flightSchedule = individual.getFlightSchedule().copy();
+        AirportSchedule airportSchedule = individual.getAirportSchedule().copy();
+        for (PlanGene plan : individual.genes()) {
+            Individual.releasePlan(world, plan, flightSchedule, airportSchedule);
+        }
+        FlightSchedule base = world.getFlights().getSchedule();
+        long firstDay = TestWorlds.START.atOffset(ZoneOffset.UTC).toLocalDate().toEpochDay() - 1;
+        for (Flight flight : world.getFlights().getAll()) {
+            for (long day = firstDay; day < firstDay + 6; day++) {
+                assertEquals(base.getRemainingCapacity(flight, day), flightSchedule.getRemainingCapacity(flight, day),
+                        "vuelo " + flight.getId() + " día " + day);
+            }
+        }
+        LocalDateTime from = LocalDateTime.ofInstant(TestWorlds.START, ZoneOffset.UTC).minusDays(1);
+        for (String airport : world.getAirports().asMap().keySet()) {
+            assertEquals(world.getAirportSchedule().getOccupancyCurve(airport, from, from.plusDays(6)),
+                    airportSchedule.getOccupancyCurve(airport, from, from.plusDays(6)), "aeropuerto " + airport);
+        }
+    }
+
+    private static void assertMatchesFullEvaluation(Individual individual) {
+        assertTrue(individual.isFitnessConsistent(), "agregado incremental distinto de la evaluación completa");
+        Individual full = Individual.assemble(individual.genes(), individual.getFlightSchedule(),
+                individual.getAirportSchedule());
+        assertEquals(full.getFitness(), individual.getFitness());
+        assertEquals(full.getSlaViolations(), individual.getSlaViolations());
+        assertEquals(full.fingerprint(), individual.fingerprint());
+    }
+}
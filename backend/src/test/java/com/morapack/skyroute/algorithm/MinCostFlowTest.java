@@ -0,0 +1,143 @@
+package com.morapack.skyroute.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Flujo y costo en grafos chicos: uno resuelto a mano y DAGs aleatorios contra caminos más cortos
+ * sucesivos con Bellman-Ford; la descomposición en caminos debe cubrir exactamente el flujo.
+ */
+class MinCostFlowTest {
+
+    @Test
+    void solvesHandCheckedGraph() {
+        // 0 -> 1 -> 3 y 0 -> 2 -> 3, con 1 -> 2 gratis: llenar todo cuesta 10, tres unidades cuestan 7
+        int[][] edges = {{0, 1, 2, 1}, {0, 2, 2, 2}, {1, 3, 1, 1}, {1, 2, 1, 0}, {2, 3, 3, 1}};
+        assertEquals(4, solve(edges, 4, 10)[0]);
+        assertEquals(10, solve(edges, 4, 10)[1]);
+        assertEquals(3, solve(edges, 4, 3)[0]);
+        assertEquals(7, solve(edges, 4, 3)[1]);
+    }
+
+    @Test
+    void matchesBellmanFordOnRandomDags() {
+        Random random = new Random(21);
+        for (int round = 0; round < 300; round++) {
+            int nodes = 3 + random.nextInt(8);
+            List<int[]> edges = new ArrayList<>();
+            for (int i = 0; i < nodes * 3; i++) {
+                int from = random.nextInt(nodes - 1);
+                int to = from + 1 + random.nextInt(nodes - 1 - from);
+                edges.add(new int[]{from, to, random.nextInt(6), random.nextInt(20)});
+            }
+            int[][] graph = edges.toArray(new int[0][]);
+            int limit = 1 + random.nextInt(25);
+            assertArrayEquals(reference(graph, nodes, limit), solve(graph, nodes, limit), "ronda " + round);
+        }
+    }
+
+    @Test
+    void pathsCoverTheFlow() {
+        Random random = new Random(33);
+        int nodes = 12;
+        MinCostFlow flow = new MinCostFlow(nodes);
+        List<Integer> arcs = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int from = random.nextInt(nodes - 1);
+            int to = from + 1 + random.nextInt(nodes - 1 - from);
+            arcs.add(flow.addEdge(from, to, 1 + random.nextInt(5), random.nextInt(10)));
+        }
+        int sent = flow.solve(0, nodes - 1, 100);
+        int[] expected = new int[arcs.size()];
+        for (int i = 0; i < arcs.size(); i++) {
+            expected[i] = flow.flow(arcs.get(i));
+        }
+        int[] covered = new int[arcs.size()];
+        int total = 0;
+        for (MinCostFlow.Path path : flow.paths(0, nodes - 1)) {
+            int node = 0;
+            for (int edge : path.edges()) {
+                assertEquals(node, flow.head(edge ^ 1), "camino discontinuo");
+                covered[arcs.indexOf(edge)] += path.amount();
+                node = flow.head(edge);
+            }
+            assertEquals(nodes - 1, node);
+            total += path.amount();
+        }
+        assertEquals(sent, total);
+        assertArrayEquals(expected, covered);
+    }
+
+    @Test
+    void negativeCostIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MinCostFlow(2).addEdge(0, 1, 1, -1));
+    }
+
+    /**
+     * Unidades enviadas y costo total con el solver; fuente 0 y sumidero el último nodo.
+     */
+    private static long[] solve(int[][] edges, int nodes, int limit) {
+        MinCostFlow flow = new MinCostFlow(nodes);
+        int[] ids = new int[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            ids[i] = flow.addEdge(edges[i][0], edges[i][1], edges[i][2], edges[i][3]);
+        }
+        int sent = flow.solve(0, nodes - 1, limit);
+        long cost = 0;
+        for (int i = 0; i < edges.length; i++) {
+            cost += (long) flow.flow(ids[i]) * edges[i][3];
+        }
+        return new long[]{sent, cost};
+    }
+
+    /**
+     * Caminos más cortos sucesivos con Bellman-Ford sobre la red residual, de a una unidad.
+     */
+    private static long[] reference(int[][] edges, int nodes, int limit) {
+        int m = edges.length;
+        int[] residual = new int[2 * m];
+        for (int i = 0; i < m; i++) {
+            residual[2 * i] = edges[i][2];
+        }
+        long cost = 0;
+        int sent = 0;
+        while (sent < limit) {
+            long[] distance = new long[nodes];
+            int[] via = new int[nodes];
+            Arrays.fill(distance, Long.MAX_VALUE);
+            distance[0] = 0;
+            for (int pass = 0; pass < nodes; pass++) {
+                for (int e = 0; e < 2 * m; e++) {
+                    int[] edge = edges[e / 2];
+                    int from = e % 2 == 0 ? edge[0] : edge[1];
+                    int to = e % 2 == 0 ? edge[1] : edge[0];
+                    long edgeCost = e % 2 == 0 ? edge[3] : -edge[3];
+                    if (residual[e] > 0 && distance[from] != Long.MAX_VALUE && distance[from] + edgeCost < distance[to]) {
+                        distance[to] = distance[from] + edgeCost;
+                        via[to] = e;
+                    }
+                }
+            }
+            if (distance[nodes - 1] == Long.MAX_VALUE) {
+                break;
+            }
+            for (int node = nodes - 1; node != 0; ) {
+                int e = via[node];
+                residual[e]--;
+                residual[e ^ 1]++;
+                node = e % 2 == 0 ? edges[e / 2][0] : edges[e / 2][1];
+            }
+            cost += distance[nodes - 1];
+            sent++;
+        }
+        return new long[]{sent, cost};
+    }
+}
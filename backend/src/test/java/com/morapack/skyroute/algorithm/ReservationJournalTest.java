@@ -0,0 +1,88 @@
+package com.morapack.skyroute.algorithm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.morapack.skyroute.config.World;
+import com.morapack.skyroute.models.AirportSchedule;
+import com.morapack.skyroute.models.Flight;
+import com.morapack.skyroute.models.FlightSchedule;
+
+/**
+ * Rollback hasta una marca debe dejar vuelos y almacenes exactamente como antes de la transacción,
+ * incluidas las transacciones anidadas ya confirmadas; lo confirmado antes de la marca se conserva.
+ */
+class ReservationJournalTest {
+    private static final LocalDateTime BASE = LocalDateTime.ofInstant(TestWorlds.START, ZoneOffset.UTC);
+    private static final long FIRST_DAY = BASE.toLocalDate().toEpochDay();
+
+    @Test
+    void rollbackRestoresCapacityExactly() throws Exception {
+        World world = TestWorlds.world();
+        FlightSchedule flightSchedule = world.getFlights().getSchedule().copy();
+        AirportSchedule airportSchedule = world.getAirportSchedule().copy();
+        List<Flight> flights = world.getFlights().getAll();
+        ReservationJournal journal = new ReservationJournal(world.getFlights(), flightSchedule, airportSchedule);
+        Random random = new Random(9);
+        for (int round = 0; round < 100; round++) {
+            int kept = journal.begin();
+            for (int i = 0; i < 5; i++) {
+                journal.tryReserveFlight(flights.get(random.nextInt(flights.size())), FIRST_DAY + random.nextInt(3),
+                        1 + random.nextInt(50));
+            }
+            journal.commit(kept);
+
+            FlightSchedule flightsBefore = flightSchedule.copy();
+            AirportSchedule airportsBefore = airportSchedule.copy();
+            int mark = journal.begin();
+            for (int i = 0; i < 20; i++) {
+                Flight flight = flights.get(random.nextInt(flights.size()));
+                journal.tryReserveFlight(flight, FIRST_DAY + random.nextInt(3), 1 + random.nextInt(100));
+                LocalDateTime start = BASE.plusMinutes(random.nextInt(4_000));
+                journal.tryReserveTransit(flight.getDestinationCode(), start, start.plusMinutes(1 + random.nextInt(300)),
+                        1 + random.nextInt(400));
+            }
+            if (random.nextBoolean()) {
+                int inner = journal.begin();
+                journal.tryReserveFlight(flights.get(random.nextInt(flights.size())), FIRST_DAY + 1, 7);
+                journal.commit(inner);
+            }
+            journal.rollback(mark);
+            assertSameCapacity(world, flightsBefore, flightSchedule, airportsBefore, airportSchedule);
+            assertEquals(mark, journal.size());
+        }
+    }
+
+    @Test
+    void staleMarkIsRejected() throws Exception {
+        World world = TestWorlds.world();
+        ReservationJournal journal = new ReservationJournal(world.getFlights(),
+                world.getFlights().getSchedule().copy(), world.getAirportSchedule().copy());
+        int mark = journal.begin();
+        journal.tryReserveFlight(world.getFlights().getAll().get(0), FIRST_DAY, 1);
+        journal.commit(mark);
+        assertThrows(IllegalStateException.class, () -> journal.rollback(mark + 1));
+    }
+
+    private static void assertSameCapacity(World world,
+                                           FlightSchedule expectedFlights, FlightSchedule actualFlights,
+                                           AirportSchedule expectedAirports, AirportSchedule actualAirports) {
+        for (Flight flight : world.getFlights().getAll()) {
+            for (long day = FIRST_DAY; day < FIRST_DAY + 3; day++) {
+                assertEquals(expectedFlights.getRemainingCapacity(flight, day), actualFlights.getRemainingCapacity(flight, day),
+                        "vuelo " + flight.getId() + " día " + day);
+            }
+        }
+        for (String airport : world.getAirports().asMap().keySet()) {
+            assertEquals(expectedAirports.getOccupancyCurve(airport, BASE, BASE.plusDays(4)),
+                    actualAirports.getOccupancyCurve(airport, BASE, BASE.plusDays(4)), "aeropuerto " + airport);
+        }
+    }
+}
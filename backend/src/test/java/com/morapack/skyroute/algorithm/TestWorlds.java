@@ -0,0 +1,59 @@
+package com.morapack.skyroute.algorithm;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.morapack.skyroute.config.World;
+import com.morapack.skyroute.io.Airports;
+import com.morapack.skyroute.io.Flights;
+import com.morapack.skyroute.models.Airport;
+import com.morapack.skyroute.models.AirportSchedule;
+import com.morapack.skyroute.models.Order;
+import com.morapack.skyroute.orders.repository.OrderRepository;
+
+/**
+ * World armado con los archivos de aeropuertos y vuelos del repo, sin base de datos, y órdenes
+ * sintéticas reproducibles para las pruebas del algoritmo.
+ */
+final class TestWorlds {
+    static final Instant START = Instant.parse("2025-01-02T00:00:00Z");
+    private static final Path DATA = Paths.get("src/main/java/com/morapack/skyroute/config/data");
+
+    private TestWorlds() {
+    }
+
+    static World world() throws IOException {
+        Airports airports = Airports.load(DATA.resolve("aeropuertos.txt"));
+        Flights flights = Flights.load(DATA.resolve("vuelos.txt"), airports);
+        World.setRepositories(null, null, mock(OrderRepository.class));
+        return World.fromData(airports, flights, new AirportSchedule(airports.asMap()), START);
+    }
+
+    /**
+     * Órdenes creadas en las primeras 6 horas, con destino fuera de los hubs y plazo de 72 horas.
+     */
+    static List<Order> orders(World world, int count, long seed) {
+        Random random = new Random(seed);
+        List<String> codes = new ArrayList<>(world.getAirports().asMap().keySet());
+        codes.sort(Comparator.naturalOrder());
+        codes.removeAll(RouteBuilder.PRODUCTION_HUBS);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Airport destination = world.getAirports().get(codes.get(random.nextInt(codes.size())));
+            Instant created = START.plusSeconds(random.nextInt(6 * 3600));
+            orders.add(new Order("O" + i, "C" + i, destination, 50 + random.nextInt(600),
+                    created, created.plus(Duration.ofHours(72))));
+        }
+        orders.sort(Comparator.comparing(Order::getCreationUtc));
+        return orders;
+    }
+}
@@ -0,0 +1,132 @@
+package com.morapack.skyroute.models;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Micro-benchmark manual (no corre con los tests): reservas por segundo de la tabla densa frente al
+ * HAMT y al HashMap copy-on-write original, con el patrón del GA (copiar el schedule base y reservar
+ * los tramos de un plan). Ejecutar con: java -cp target/classes:target/test-classes
+ * com.morapack.skyroute.models.FlightScheduleBenchmark [reservas]
+ */
+public class FlightScheduleBenchmark {
+    private static final int FLIGHTS = 2_900;
+    private static final int DAYS = 14;
+    private static final int RESERVATIONS_PER_COPY = 40;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        List<Flight> flights = syntheticFlights();
+        LocalDate start = LocalDate.of(2025, 1, 1);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.printf("Ronda %d%n", round);
+            report("HashMap (original)", operations, run(new HashMapSchedule(), flights, start, operations));
+            report("HAMT persistente", operations, run(new ScheduleAdapter(new FlightSchedule()), flights, start, operations));
+            report("Tabla densa", operations, run(new ScheduleAdapter(FlightSchedule.dense()), flights, start, operations));
+        }
+    }
+
+    private static long run(Schedule base, List<Flight> flights, LocalDate start, int operations) {
+        Random random = new Random(42);
+        // Estado base con ocupación previa, como el schedule del mundo al iniciar un batch
+        for (int i = 0; i < FLIGHTS * 4; i++) {
+            base.tryReserve(flights.get(random.nextInt(FLIGHTS)), start.plusDays(random.nextInt(DAYS)), 10);
+        }
+        long began = System.nanoTime();
+        long checksum = 0;
+        Schedule current = base.copy();
+        for (int op = 0; op < operations; op++) {
+            if (op % RESERVATIONS_PER_COPY == 0) {
+                current = base.copy();
+            }
+            Flight flight = flights.get(random.nextInt(FLIGHTS));
+            if (current.tryReserve(flight, start.plusDays(random.nextInt(DAYS)), 1 + random.nextInt(20))) {
+                checksum++;
+            }
+        }
+        long elapsed = System.nanoTime() - began;
+        if (checksum < 0) {
+            System.out.println(checksum);
+        }
+        return elapsed;
+    }
+
+    private static void report(String name, int operations, long nanos) {
+        double perSecond = operations / (nanos / 1_000_000_000.0);
+        System.out.printf("  %-20s %,14.0f reservas/s (%d ms)%n", name, perSecond, nanos / 1_000_000);
+    }
+
+    private static List<Flight> syntheticFlights() {
+        Airport origin = new Airport("SKBO", "Bogota", -5, 500, "America del Sur", 4.7, -74.1);
+        Airport destination = new Airport("EBCI", "Bruselas", 2, 500, "Europa", 50.5, 4.5);
+        List<Flight> flights = new ArrayList<>(FLIGHTS);
+        for (int i = 0; i < FLIGHTS; i++) {
+            LocalTime departure = LocalTime.of(i % 24, i % 60);
+            Flight flight = new Flight("F" + i, origin, destination, departure, departure.plusHours(9),
+                    200 + i % 200, Set.of());
+            flight.setIndex(i);
+            flights.add(flight);
+        }
+        return flights;
+    }
+
+    private interface Schedule {
+        boolean tryReserve(Flight flight, LocalDate date, int quantity);
+
+        Schedule copy();
+    }
+
+    private record ScheduleAdapter(FlightSchedule schedule) implements Schedule {
+        @Override
+        public boolean tryReserve(Flight flight, LocalDate date, int quantity) {
+            return schedule.tryReserve(flight, date, quantity);
+        }
+
+        @Override
+        public Schedule copy() {
+            return new ScheduleAdapter(schedule.copy());
+        }
+    }
+
+    /**
+     * Réplica de la implementación previa al HAMT: HashMap por (id, fecha) clonado en la primera escritura.
+     */
+    private static final class HashMapSchedule implements Schedule {
+        private Map<Key, Integer> remaining = new HashMap<>();
+        private boolean shared;
+
+        @Override
+        public boolean tryReserve(Flight flight, LocalDate date, int quantity) {
+            if (shared) {
+                remaining = new HashMap<>(remaining);
+                shared = false;
+            }
+            Key key = new Key(flight.getId(), date);
+            int available = remaining.getOrDefault(key, flight.getDailyCapacity());
+            if (available < quantity) {
+                return false;
+            }
+            remaining.put(key, available - quantity);
+            return true;
+        }
+
+        @Override
+        public Schedule copy() {
+            HashMapSchedule copy = new HashMapSchedule();
+            copy.remaining = remaining;
+            copy.shared = true;
+            shared = true;
+            return copy;
+        }
+
+        private record Key(String flightId, LocalDate date) {}
+    }
+}
@@ -0,0 +1,127 @@
+package com.morapack.skyroute.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ambos backends de FlightSchedule (HAMT y tabla densa) contra un mapa de referencia, con reservas,
+ * liberaciones y copias que divergen: copy() no debe filtrar escrituras entre copias.
+ */
+class FlightScheduleTest {
+    private static final int FLIGHTS = 200;
+    private static final int DAYS = 10;
+    private static final long FIRST_DAY = LocalDate.of(2025, 1, 1).toEpochDay();
+
+    @Test
+    void persistentBackendMatchesReference() {
+        checkAgainstReference(FlightSchedule::new);
+    }
+
+    @Test
+    void denseBackendMatchesReference() {
+        checkAgainstReference(FlightSchedule::dense);
+    }
+
+    @Test
+    void cancelledDateRejectsReservations() {
+        Flight flight = flight(0, Set.of(LocalDate.ofEpochDay(FIRST_DAY)));
+        FlightSchedule schedule = FlightSchedule.dense();
+        assertFalse(schedule.tryReserve(flight, FIRST_DAY, 1));
+        assertTrue(schedule.tryReserve(flight, FIRST_DAY + 1, 1));
+    }
+
+    @Test
+    void releasingAboveDailyCapacityFails() {
+        Flight flight = flight(0, Set.of());
+        FlightSchedule schedule = new FlightSchedule();
+        assertThrows(IllegalArgumentException.class, () -> schedule.release(flight, FIRST_DAY, 1));
+    }
+
+    private static void checkAgainstReference(Supplier<FlightSchedule> factory) {
+        List<Flight> flights = new ArrayList<>();
+        for (int i = 0; i < FLIGHTS; i++) {
+            flights.add(flight(i, Set.of()));
+        }
+        Random random = new Random(7);
+        FlightSchedule schedule = factory.get();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int op = 0; op < 30_000; op++) {
+            Flight flight = flights.get(random.nextInt(FLIGHTS));
+            long day = FIRST_DAY + random.nextInt(DAYS);
+            long key = key(flight, day);
+            int remaining = expected.getOrDefault(key, flight.getDailyCapacity());
+            int quantity = 1 + random.nextInt(60);
+            int action = random.nextInt(10);
+            if (action < 6) {
+                boolean reserved = schedule.tryReserve(flight, day, quantity);
+                assertEquals(remaining >= quantity, reserved, "tryReserve " + flight.getId() + " día " + day);
+                if (reserved) {
+                    expected.put(key, remaining - quantity);
+                }
+            } else if (action < 9) {
+                int used = flight.getDailyCapacity() - remaining;
+                if (used > 0) {
+                    int released = Math.min(used, quantity);
+                    schedule.release(flight, LocalDate.ofEpochDay(day), released);
+                    expected.put(key, remaining + released);
+                }
+            } else {
+                // La copia diverge; el original no debe ver sus escrituras y a veces pasa a ser el actual
+                Map<Long, Integer> before = snapshot(schedule, flights);
+                FlightSchedule copy = schedule.copy();
+                for (int i = 0; i < 50; i++) {
+                    copy.tryReserve(flights.get(random.nextInt(FLIGHTS)), FIRST_DAY + random.nextInt(DAYS), 1);
+                }
+                assertEquals(before, snapshot(schedule, flights));
+                if (random.nextBoolean()) {
+                    schedule = copy;
+                    expected = snapshot(schedule, flights);
+                }
+            }
+            assertEquals(expected.getOrDefault(key, flight.getDailyCapacity()).intValue(),
+                    schedule.getRemainingCapacity(flight, day));
+        }
+        assertEquals(expected, snapshot(schedule, flights));
+    }
+
+    private static Map<Long, Integer> snapshot(FlightSchedule schedule, List<Flight> flights) {
+        Map<Long, Integer> remaining = new HashMap<>();
+        for (Flight flight : flights) {
+            for (long day = FIRST_DAY; day < FIRST_DAY + DAYS; day++) {
+                int left = schedule.getRemainingCapacity(flight, day);
+                if (left != flight.getDailyCapacity()) {
+                    remaining.put(key(flight, day), left);
+                }
+            }
+        }
+        return remaining;
+    }
+
+    private static long key(Flight flight, long day) {
+        return (long) flight.getIndex() * DAYS + (day - FIRST_DAY);
+    }
+
+    private static Flight flight(int index, Set<LocalDate> cancelled) {
+        Airport origin = new Airport("SKBO", "Bogota", -5, 500, "America del Sur", 4.7, -74.1);
+        Airport destination = new Airport("EBCI", "Bruselas", 2, 500, "Europa", 50.5, 4.5);
+        LocalTime departure = LocalTime.of(index % 24, index % 60);
+        Flight flight = new Flight("F" + index, origin, destination, departure, departure.plusHours(9),
+                100 + index % 200, cancelled);
+        flight.setIndex(index);
+        return flight;
+    }
+}
@@ -0,0 +1,78 @@
+package com.morapack.skyroute.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * El árbol de segmentos contra un arreglo minuto a minuto. Los minutos se reparten en una ventana
+ * mayor que el tramo inicial, hacia ambos lados del primer registro, para forzar que crezca.
+ */
+class OccupancyTimelineTest {
+    private static final long FIRST = 29_000_000L;
+    private static final int WINDOW = 150_000;
+
+    @Test
+    void matchesMinuteByMinuteReference() {
+        Random random = new Random(5);
+        OccupancyTimeline timeline = OccupancyTimeline.EMPTY;
+        int[] expected = new int[WINDOW];
+        OccupancyTimeline older = null;
+        int[] olderExpected = null;
+        for (int op = 0; op < 600; op++) {
+            int offset = random.nextInt(WINDOW);
+            int delta = random.nextInt(401) - 200;
+            timeline = timeline.addFrom(FIRST + offset, delta);
+            for (int i = offset; i < WINDOW; i++) {
+                expected[i] += delta;
+            }
+            if (op == 300) {
+                older = timeline;
+                olderExpected = expected.clone();
+            }
+            long from = FIRST - 1_000 + random.nextInt(WINDOW + 2_000);
+            long to = from + 1 + random.nextInt(20_000);
+            assertEquals(referenceMax(expected, from, to), timeline.maxOver(from, to), "[" + from + ", " + to + ")");
+            long minute = FIRST - 10 + random.nextInt(WINDOW + 20);
+            assertEquals(referenceValue(expected, minute), timeline.valueAt(minute), "minuto " + minute);
+        }
+        assertEquals(referenceMax(olderExpected, FIRST - 5, FIRST + WINDOW + 5), older.maxOver(FIRST - 5, FIRST + WINDOW + 5));
+        for (int i = 0; i < WINDOW; i += 997) {
+            assertEquals(olderExpected[i], older.valueAt(FIRST + i));
+        }
+    }
+
+    @Test
+    void emptyTimelineIsZero() {
+        assertEquals(0, OccupancyTimeline.EMPTY.valueAt(FIRST));
+        assertEquals(0, OccupancyTimeline.EMPTY.maxOver(FIRST, FIRST + 10));
+        assertThrows(IllegalArgumentException.class, () -> OccupancyTimeline.EMPTY.maxOver(FIRST, FIRST));
+    }
+
+    private static int referenceValue(int[] expected, long minute) {
+        if (minute < FIRST) {
+            return 0;
+        }
+        return minute >= FIRST + WINDOW ? expected[WINDOW - 1] : expected[(int) (minute - FIRST)];
+    }
+
+    private static int referenceMax(int[] expected, long from, long to) {
+        int best = Integer.MIN_VALUE;
+        if (from < FIRST) {
+            best = 0;
+        }
+        if (to > FIRST + WINDOW) {
+            best = Math.max(best, expected[WINDOW - 1]);
+        }
+        int a = (int) Math.max(0, from - FIRST);
+        int b = (int) Math.min(WINDOW, to - FIRST);
+        if (a < b) {
+            best = Math.max(best, Arrays.stream(expected, a, b).max().getAsInt());
+        }
+        return best;
+    }
+}
@@ -0,0 +1,93 @@
+package com.morapack.skyroute.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * El HAMT contra un HashMap de referencia con operaciones aleatorias; las versiones anteriores no
+ * deben cambiar. Las claves con hash forzado ejercitan los nodos de colisión.
+ */
+class PersistentCapacityMapTest {
+    private static final int MISSING = -1;
+
+    private record Key(int id, int hash) {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    void matchesReferenceAndKeepsOldVersions() {
+        Random random = new Random(11);
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            // Una de cada cuatro claves comparte hash con otra de ellas
+            keys.add(new Key(i, i % 4 == 0 ? i / 8 : random.nextInt()));
+        }
+        PersistentCapacityMap<Key> map = PersistentCapacityMap.empty();
+        Map<Key, Integer> expected = new HashMap<>();
+        List<PersistentCapacityMap<Key>> versions = new ArrayList<>();
+        List<Map<Key, Integer>> snapshots = new ArrayList<>();
+        for (int op = 0; op < 20_000; op++) {
+            Key key = keys.get(random.nextInt(keys.size()));
+            int action = random.nextInt(10);
+            if (action < 6) {
+                int value = random.nextInt(1_000);
+                map = map.put(key, value);
+                expected.put(key, value);
+            } else if (action < 9) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                int modulus = 2 + random.nextInt(5);
+                map = map.removeIf(candidate -> candidate.id() % modulus == 0);
+                expected.keySet().removeIf(candidate -> candidate.id() % modulus == 0);
+            }
+            assertEquals(expected.getOrDefault(key, MISSING).intValue(), map.get(key, MISSING));
+            if (op % 2_000 == 0) {
+                versions.add(map);
+                snapshots.add(new HashMap<>(expected));
+            }
+        }
+        assertContents(expected, map, keys);
+        for (int i = 0; i < versions.size(); i++) {
+            assertContents(snapshots.get(i), versions.get(i), keys);
+        }
+    }
+
+    @Test
+    void removingEverythingLeavesEmptyMap() {
+        PersistentCapacityMap<Key> map = PersistentCapacityMap.empty();
+        for (int i = 0; i < 100; i++) {
+            map = map.put(new Key(i, i % 10), i);
+        }
+        assertTrue(map.removeIf(key -> true).isEmpty());
+        for (int i = 0; i < 100; i++) {
+            map = map.remove(new Key(i, i % 10));
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void unchangedWritesReturnSameMap() {
+        PersistentCapacityMap<Key> map = PersistentCapacityMap.<Key>empty().put(new Key(1, 1), 5);
+        assertSame(map, map.remove(new Key(2, 1)));
+        assertSame(map, map.removeIf(key -> false));
+    }
+
+    private static void assertContents(Map<Key, Integer> expected, PersistentCapacityMap<Key> map, List<Key> keys) {
+        for (Key key : keys) {
+            assertEquals(expected.getOrDefault(key, MISSING).intValue(), map.get(key, MISSING), "clave " + key);
+        }
+    }
+}
@@ -129,6 +129,7 @@ export interface SimulationStartRequest {
   windowMinutes?: number;
   useHeuristicSeed?: boolean;
   prewarmToken?: string;
+  engine?: 'GENETIC' | 'ALNS'; // GENETIC por defecto
 }
 
 // Corresponde a SimulationStartResponse.java